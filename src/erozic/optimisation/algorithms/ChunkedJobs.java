@@ -0,0 +1,107 @@
+package erozic.optimisation.algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Does a job on a range of indices [0, size) on multiple threads, by splitting
+ * it into disjoint chunks (a few per thread, so the threads that finish early
+ * can take more) which are given to a {@link ForkJoinPool}. The chunks are
+ * made once, so the same job can be run every step of an algorithm without
+ * allocating anything but the futures.
+ *
+ * The job has to be safe to run on different chunks at the same time.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class ChunkedJobs {
+
+	/** How many chunks there are per thread */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/**
+	 * A job done on a chunk of the indices, from "from" (inclusive) to "to"
+	 * (exclusive).
+	 */
+	@FunctionalInterface
+	public interface Job {
+		void run(int from, int to);
+	}
+
+	private ForkJoinPool threadPool;
+
+	private List<Callable<Void>> jobPool;
+
+	/**
+	 * Calls the other constructor with a grain of 1.
+	 */
+	public ChunkedJobs(int numThreads, int size, Job job) {
+		this(numThreads, size, 1, job);
+	}
+
+	/**
+	 * Splits the indices into chunks whose sizes are multiples of the given
+	 * grain (e.g. 2 for the pairs of children of a genetic algorithm) and
+	 * starts the thread pool.
+	 *
+	 * @param numThreads
+	 *            the number of threads of the pool
+	 * @param size
+	 *            the number of indices, a multiple of the grain
+	 * @param grain
+	 *            the smallest part of the indices that is not split
+	 * @param job
+	 *            the job done on every chunk
+	 */
+	public ChunkedJobs(int numThreads, int size, int grain, Job job) {
+
+		if (numThreads < 1 || grain < 1 || size % grain != 0)
+			throw new IllegalArgumentException("The number of threads and the grain have to be positive, and the size ("
+					+ size + ") a multiple of the grain (" + grain + ")!");
+
+		int numGrains = size / grain;
+		int numChunks = Math.min(numThreads * CHUNKS_PER_THREAD, numGrains);
+
+		jobPool = new ArrayList<Callable<Void>>(numChunks);
+		for (int c = 0; c < numChunks; c++) {
+			int from = grain * (int) ((long) numGrains * c / numChunks);
+			int to = grain * (int) ((long) numGrains * (c + 1) / numChunks);
+			jobPool.add(() -> {
+				// this is the job that is done
+				job.run(from, to);
+				return null;
+			});
+		}
+
+		threadPool = new ForkJoinPool(numThreads);
+	}
+
+	/**
+	 * Runs the job on all the chunks and returns when they are all done.
+	 *
+	 * @throws IllegalStateException
+	 *             if the job failed on any of the chunks (with what broke it
+	 *             as the cause)
+	 */
+	public void invokeAll() {
+
+		for (Future<Void> future : threadPool.invokeAll(jobPool)) {
+			try {
+				future.get();
+			} catch (Exception e) {
+				throw new IllegalStateException("Something broke in one of the jobs:\n" + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Shuts the thread pool down, the jobs can't be run after it.
+	 */
+	public void shutdown() {
+		threadPool.shutdown();
+	}
+}
@@ -41,6 +41,11 @@ public abstract class OptimisationAlgorithm<T extends Solution> implements Runna
 	protected int maxSteps = -1;
 	/** The current step */
 	protected int currentStep;
+	/**
+	 * The fitness which, when reached by the current best solution, stops the
+	 * algorithm (+oo by default, i.e. never)
+	 */
+	protected double targetFitness = Double.POSITIVE_INFINITY;
 	
 	protected T currentBestSolution = null;
 	
@@ -48,6 +53,19 @@ public abstract class OptimisationAlgorithm<T extends Solution> implements Runna
 		return currentBestSolution;
 	}
 	
+	/**
+	 * Sets the fitness at which the algorithm will stop, i.e. the algorithm will
+	 * not start another step once the fitness of the current best solution is at
+	 * least equal to the given one. 
+	 */
+	public void setTargetFitness(double targetFitness) {
+		this.targetFitness = targetFitness;
+	}
+	
+	public double getTargetFitness() {
+		return targetFitness;
+	}
+	
 	volatile private boolean started = false;
 	volatile private boolean stopped = false;
 	volatile private boolean paused = false;
@@ -73,7 +91,7 @@ public abstract class OptimisationAlgorithm<T extends Solution> implements Runna
 		algorithmStart();
 		
 		currentStep = 0;
-		while ( !stopped && currentStep < maxSteps){
+		while ( !stopped && currentStep < maxSteps && !targetFitnessReached()){
 			currentStep++;
 			algorithmStep();
 			waitIfPaused();
@@ -82,6 +100,13 @@ public abstract class OptimisationAlgorithm<T extends Solution> implements Runna
 		stopped = true;
 	}
 	
+	/**
+	 * @return true if the current best solution has reached the {@link #targetFitness}
+	 */
+	private boolean targetFitnessReached() {
+		return currentBestSolution != null && currentBestSolution.getFitness() >= targetFitness;
+	}
+	
 	/**
 	 * Whatever needs to be done before the algorithm starts with its steps, e.g.
 	 * setting some initial values, finding an initial best solution, writing out something
@@ -0,0 +1,65 @@
+package erozic.optimisation.algorithms;
+
+import java.util.AbstractList;
+
+import erozic.optimisation.solutions.VectorSolution;
+
+/**
+ * A view of a population stored as a "structure of arrays" (the values of all
+ * the individuals in a single array, individual after individual, and their
+ * fitnesses in another one) as a list of {@link VectorSolution}s, e.g. for the
+ * listeners of an algorithm. An individual is copied from the arrays when it
+ * is accessed, into an object that is reused for that individual.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class VectorPopulationView extends AbstractList<VectorSolution> {
+
+	private double[] values;
+	private double[] fitnesses;
+	private int dimensions;
+
+	private VectorSolution[] views;
+
+	/**
+	 * @param values
+	 *            the values of the individuals, dimensions values per
+	 *            individual
+	 * @param fitnesses
+	 *            the fitnesses of the individuals (as many as there are in the
+	 *            view)
+	 * @param dimensions
+	 *            the number of values of an individual
+	 */
+	public VectorPopulationView(double[] values, double[] fitnesses, int dimensions) {
+
+		if (values.length != fitnesses.length * dimensions)
+			throw new IllegalArgumentException("There have to be " + dimensions + " values per fitness!");
+
+		this.values = values;
+		this.fitnesses = fitnesses;
+		this.dimensions = dimensions;
+
+		views = new VectorSolution[fitnesses.length];
+	}
+
+	@Override
+	public VectorSolution get(int index) {
+
+		if (views[index] == null) {
+			views[index] = new VectorSolution(dimensions);
+		}
+		VectorSolution view = views[index];
+
+		System.arraycopy(values, index * dimensions, view.getValues(), 0, dimensions);
+		view.setFitness(fitnesses[index]);
+
+		return view;
+	}
+
+	@Override
+	public int size() {
+		return fitnesses.length;
+	}
+}
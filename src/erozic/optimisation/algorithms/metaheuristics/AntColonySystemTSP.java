@@ -6,6 +6,7 @@ import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 import erozic.optimisation.algorithms.OptimisationAlgorithm;
+import erozic.optimisation.algorithms.operators.LinKernighanTSP;
 import erozic.optimisation.solutions.TSPSolution;
 import erozic.optimisation.utils.TSPUtil;
 
@@ -54,6 +55,9 @@ public class AntColonySystemTSP extends OptimisationAlgorithm<TSPSolution> {
 	 */
 	private int[] available;
 
+	/** An optional local search applied to the best ant of every step */
+	protected LinKernighanTSP localSearch = null;
+
 	protected TSPUtil tspUtil;
 	protected int numTowns;
 
@@ -102,7 +106,7 @@ public class AntColonySystemTSP extends OptimisationAlgorithm<TSPSolution> {
 			heuristics[i][i] = pheromones[i][i] = probabilities[i][i] = 0;
 			for (int j = i + 1; j < numTowns; j++) {
 				pheromones[i][j] = pheromones[j][i] = initialPheromones;
-				heuristics[i][j] = heuristics[j][i] = Math.pow((1.0 / tspUtil.getDistances()[i][j]), beta);
+				heuristics[i][j] = heuristics[j][i] = Math.pow((1.0 / tspUtil.distance(i, j)), beta);
 				probabilities[i][j] = probabilities[j][i] = calculateEdgeProbability(i, j);
 			}
 		}
@@ -147,6 +151,10 @@ public class AntColonySystemTSP extends OptimisationAlgorithm<TSPSolution> {
 			findAPath(ant);
 			tspUtil.evaluate(ant);
 		}
+		
+		if (localSearch != null) {
+			improveBestAnt();
+		}
 
 		depositPheromones();
 		evaporatePheromones();
@@ -209,6 +217,29 @@ public class AntColonySystemTSP extends OptimisationAlgorithm<TSPSolution> {
 		ant.getPath()[numTowns - 1] = available[numTowns - 1];
 	}
 
+	/**
+	 * Brings the best ant of the current step to a local optimum with the
+	 * {@link #localSearch}, so its (improved) path gets the pheromones.
+	 */
+	private void improveBestAnt() {
+		
+		TSPSolution bestAnt = ants.get(0);
+		for (int i = 1; i < colonySize; i++) {
+			if (ants.get(i).compareTo(bestAnt) < 0) {
+				bestAnt = ants.get(i);
+			}
+		}
+		localSearch.improve(bestAnt);
+	}
+	
+	/**
+	 * Sets a local search to be applied to the best ant of every step, or none if
+	 * null is given.
+	 */
+	public void setLocalSearch(LinKernighanTSP localSearch) {
+		this.localSearch = localSearch;
+	}
+
 	/**
 	 * Simulates ants depositing pheromones on their paths. The pheromone
 	 * deposit is inverse proportional to the path length of an ant.
@@ -0,0 +1,520 @@
+package erozic.optimisation.algorithms.metaheuristics;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import erozic.optimisation.algorithms.ChunkedJobs;
+import erozic.optimisation.algorithms.OptimisationAlgorithm;
+import erozic.optimisation.algorithms.VectorPopulationView;
+import erozic.optimisation.solutions.VectorSolution;
+import erozic.optimisation.utils.EigenDecomposition;
+import erozic.optimisation.utils.VectorUtil;
+
+/**
+ * An implementation of the Covariance Matrix Adaptation Evolution Strategy
+ * (CMA-ES) for finding the extremum of a function, which learns the shape
+ * (the covariance matrix) of the distribution it samples the offspring from,
+ * so it works just as well on ill-conditioned (and non-separable) functions
+ * as on the well-conditioned ones.
+ *
+ * Every generation {@link #populationSize} offspring are sampled from a
+ * normal distribution with the {@link #mean}, the step size {@link #sigma}
+ * and the covariance matrix C. The new mean is the weighted average of the
+ * better half of them, C is updated with the evolution path (rank-one update)
+ * and with the steps of the better half (rank-mu update), and sigma by
+ * comparing the length of its own (conjugate) evolution path to the one it
+ * would have if the selection were random.
+ *
+ * Sampling needs the eigendecomposition of C, which is O(d^3), so it is only
+ * done every {@link #eigenInterval} generations (which is O(d / lambda),
+ * computed from the learning rates), and C is not changed much in between.
+ * In the separable mode only the diagonal of C is learned (sep-CMA-ES, with
+ * learning rates that are (d + 2) / 3 times larger), so a generation is O(d)
+ * per offspring instead of O(d^2) and there is no eigendecomposition at all,
+ * which is what makes sense in high dimensions.
+ *
+ * The offspring are stored as a "structure of arrays": their values are in a
+ * single array (offspring after offspring), and so are their steps (the
+ * values before they are scaled by sigma and moved to the mean). They are
+ * sampled and evaluated - split into disjoint chunks (a few per thread) which
+ * are run on a thread pool (see {@link ChunkedJobs}) - before the distribution
+ * is updated.
+ * The values outside of the domain are moved to its nearest bound (and the
+ * step with them), not wrapped around as in the other algorithms, because a
+ * wrapped offspring would have nothing to do with the distribution it was
+ * sampled from.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class CMAEvolutionStrategy extends OptimisationAlgorithm<VectorSolution> {
+
+	// --------------------------------------------------
+	// -- ALGORITHM PARAMETERS --------------------------
+	// --------------------------------------------------
+	/** The number of offspring in a generation (lambda) */
+	protected int populationSize;
+	/** The initial step size, as a fraction of the range of the domain */
+	protected double initialStepSize;
+	/** Whether only the diagonal of the covariance matrix is learned */
+	protected boolean separable;
+	/** Number of threads to sample and evaluate the offspring on (1 means the algorithm thread) */
+	protected int numThreads = 1;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	// -- the strategy parameters, set from the above --
+	/** The number of offspring the new mean is made of */
+	protected int mu;
+	/** The weights of the mu best offspring in the new mean (and the rank-mu update) */
+	protected double[] weights;
+	/** The variance effective selection mass, 1 / sum(weights^2) */
+	protected double muEff;
+	/** The learning rate of the evolution path of C */
+	protected double cc;
+	/** The learning rate of the evolution path of sigma */
+	protected double cs;
+	/** The learning rate of the rank-one update */
+	protected double c1;
+	/** The learning rate of the rank-mu update */
+	protected double cmu;
+	/** The damping of the sigma update */
+	protected double damps;
+	/** The expected length of a d-dimensional vector from N(0, I) */
+	protected double chiN;
+	/** How many generations are between two eigendecompositions */
+	protected int eigenInterval;
+
+	// -- the state of the distribution --
+	protected double[] mean;
+	protected double sigma;
+	/** The evolution path of C */
+	protected double[] pc;
+	/** The (conjugate) evolution path of sigma */
+	protected double[] ps;
+	/**
+	 * The covariance matrix (row after row), or just its diagonal in the
+	 * {@link #separable} mode
+	 */
+	protected double[] covariance;
+	/** The eigenvectors of C (its columns), null in the {@link #separable} mode */
+	protected double[] eigenvectors;
+	/** The square roots of the eigenvalues of C (the standard deviations along the eigenvectors) */
+	protected double[] deviations;
+	/** The generation of the last eigendecomposition */
+	protected int eigenStep;
+
+	/** The values of the offspring, {@link #dimensions} values per offspring */
+	protected double[] values;
+	/** The steps of the offspring (y = (x - mean) / sigma), the same layout as the {@link #values} */
+	protected double[] steps;
+	protected double[] fitnesses;
+	/** The indices of the offspring, from the best one to the worst */
+	protected int[] ranking;
+
+	protected VectorUtil vectorUtil;
+	protected int dimensions;
+
+	/** Scratch vectors of the distribution update */
+	private double[] weightedStep;
+	private double[] work;
+
+	/** A view of the offspring for the listeners */
+	private List<VectorSolution> population;
+
+	/** The chunks of the offspring sampled on multiple threads */
+	private ChunkedJobs jobs;
+
+	/**
+	 * Calls the other constructor with maxSteps = Integer.MAX_Value.
+	 */
+	public CMAEvolutionStrategy(VectorUtil vectorUtil, int populationSize, double initialStepSize,
+			boolean separable, int numThreads) {
+		this(vectorUtil, populationSize, initialStepSize, separable, numThreads, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Sets all the algorithm parameters, and the strategy parameters from them.
+	 *
+	 * @param vectorUtil
+	 *            Holds all the problem-specific information (function etc.)
+	 * @param populationSize
+	 *            {@link #populationSize}, see {@link #defaultPopulationSize(int)}
+	 * @param initialStepSize
+	 *            {@link #initialStepSize}
+	 * @param separable
+	 *            {@link #separable}
+	 * @param numThreads
+	 *            {@link #numThreads}
+	 * @param maxSteps
+	 *            {@link OptimisationAlgorithm#OptimisationAlgorithm(int)}
+	 */
+	public CMAEvolutionStrategy(VectorUtil vectorUtil, int populationSize, double initialStepSize,
+			boolean separable, int numThreads, int maxSteps) {
+		super(maxSteps);
+
+		if (populationSize < 2)
+			throw new IllegalArgumentException("The population has to have at least 2 offspring, not "
+					+ populationSize + "!");
+		if (initialStepSize <= 0)
+			throw new IllegalArgumentException("The initial step size has to be positive, not " + initialStepSize
+					+ "!");
+		if (numThreads < 1)
+			throw new IllegalArgumentException("The number of threads has to be positive, not " + numThreads + "!");
+
+		this.vectorUtil = vectorUtil;
+		this.dimensions = vectorUtil.getDimensions();
+		this.populationSize = populationSize;
+		this.initialStepSize = initialStepSize;
+		this.separable = separable;
+		this.numThreads = numThreads;
+
+		setStrategyParameters();
+
+		mean = new double[dimensions];
+		pc = new double[dimensions];
+		ps = new double[dimensions];
+		covariance = new double[separable ? dimensions : dimensions * dimensions];
+		eigenvectors = separable ? null : new double[dimensions * dimensions];
+		deviations = new double[dimensions];
+
+		values = new double[populationSize * dimensions];
+		steps = new double[populationSize * dimensions];
+		fitnesses = new double[populationSize];
+		ranking = new int[populationSize];
+
+		weightedStep = new double[dimensions];
+		work = new double[dimensions];
+
+		population = new VectorPopulationView(values, fitnesses, dimensions);
+	}
+
+	/**
+	 * @return the usual number of offspring for the given dimensionality,
+	 *         4 + floor(3 * ln(d))
+	 */
+	public static int defaultPopulationSize(int dimensions) {
+		return 4 + (int) (3 * Math.log(dimensions));
+	}
+
+	/**
+	 * Sets the weights and the learning rates to their usual values for the
+	 * {@link #populationSize} and the {@link #dimensions}.
+	 */
+	private void setStrategyParameters() {
+
+		int n = dimensions;
+
+		mu = populationSize / 2;
+		weights = new double[mu];
+		double sum = 0;
+		for (int i = 0; i < mu; i++) {
+			weights[i] = Math.log((populationSize + 1) / 2.0) - Math.log(i + 1);
+			sum += weights[i];
+		}
+		double sumOfSquares = 0;
+		for (int i = 0; i < mu; i++) {
+			weights[i] /= sum;
+			sumOfSquares += weights[i] * weights[i];
+		}
+		muEff = 1 / sumOfSquares;
+
+		cc = (4 + muEff / n) / (n + 4 + 2 * muEff / n);
+		cs = (muEff + 2) / (n + muEff + 5);
+		c1 = 2 / ((n + 1.3) * (n + 1.3) + muEff);
+		cmu = Math.min(1 - c1, 2 * (muEff - 2 + 1 / muEff) / ((n + 2) * (n + 2) + muEff));
+		if (separable) {
+			c1 = Math.min(1, c1 * (n + 2) / 3);
+			cmu = Math.min(1 - c1, cmu * (n + 2) / 3);
+		}
+		damps = 1 + 2 * Math.max(0, Math.sqrt((muEff - 1) / (n + 1)) - 1) + cs;
+		chiN = Math.sqrt(n) * (1 - 1.0 / (4 * n) + 1.0 / (21 * n * n));
+
+		eigenInterval = Math.max(1, (int) (1 / (c1 + cmu) / n / 10));
+	}
+
+	/**
+	 * Finds the best offspring (the first in the {@link #ranking}) and, if it
+	 * is the best so far, saves it and fires an update event.
+	 */
+	private void findAndSaveBestSolution() {
+
+		int best = ranking[0];
+
+		if (fitnesses[best] > currentBestSolution.getFitness()) {
+			System.arraycopy(values, best * dimensions, currentBestSolution.getValues(), 0, dimensions);
+			currentBestSolution.setFitness(fitnesses[best]);
+			fireCurrentBestSolutionUpdated(currentBestSolution);
+		}
+	}
+
+	@Override
+	protected void algorithmStart() {
+
+		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
+				+ " started on " + numThreads + " threads with parameters: populationSize = " + populationSize
+				+ ", initialStepSize = " + initialStepSize + ", separable = " + separable + ", mu = " + mu
+				+ ", eigenInterval = " + eigenInterval);
+
+		initialiseDistribution();
+
+		if (numThreads > 1) {
+			jobs = new ChunkedJobs(numThreads, populationSize, this::sampleOffspring);
+		}
+	}
+
+	@Override
+	protected void algorithmStep() {
+
+		sampleOffspring();
+
+		rankOffspring();
+
+		findAndSaveBestSolution();
+
+		updateDistribution();
+
+		if (!separable && currentStep - eigenStep >= eigenInterval) {
+			updateEigensystem();
+		}
+
+		fireStateChanged(population);
+	}
+
+	@Override
+	protected void algorithmEnd() {
+
+		if (jobs != null)
+			jobs.shutdown();
+
+		fireFinalSolutionFound(currentBestSolution);
+
+		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
+				+ " ended.");
+	}
+
+	/**
+	 * Puts the mean at a random point of the domain, with C = I and the step
+	 * size the {@link #initialStepSize} of the range of the domain, and
+	 * evaluates it as the first best solution.
+	 */
+	private void initialiseDistribution() {
+
+		Random random = ThreadLocalRandom.current();
+
+		double minValue = vectorUtil.getMinValue();
+		double maxValue = vectorUtil.getMaxValue();
+
+		for (int d = 0; d < dimensions; d++) {
+			mean[d] = random.nextDouble() * (maxValue - minValue) + minValue;
+			pc[d] = 0;
+			ps[d] = 0;
+			deviations[d] = 1;
+		}
+		sigma = initialStepSize * (maxValue - minValue);
+
+		if (separable) {
+			for (int d = 0; d < dimensions; d++) {
+				covariance[d] = 1;
+			}
+		} else {
+			for (int i = 0; i < dimensions; i++) {
+				for (int j = 0; j < dimensions; j++) {
+					covariance[i * dimensions + j] = (i == j) ? 1 : 0;
+					eigenvectors[i * dimensions + j] = (i == j) ? 1 : 0;
+				}
+			}
+		}
+		eigenStep = 0;
+
+		currentBestSolution = new VectorSolution(dimensions);
+		System.arraycopy(mean, 0, currentBestSolution.getValues(), 0, dimensions);
+		vectorUtil.evaluate(currentBestSolution);
+	}
+
+	/**
+	 * Samples and evaluates all the offspring, on the algorithm thread or by
+	 * running all the {@link #jobs}.
+	 */
+	protected void sampleOffspring() {
+
+		if (jobs == null) {
+			sampleOffspring(0, populationSize);
+		} else {
+			jobs.invokeAll();
+		}
+	}
+
+	/**
+	 * Samples the offspring from "from" (inclusive) to "to" (exclusive), as
+	 * x = mean + sigma * B * D * z with z from N(0, I), and evaluates them
+	 * (all at once).
+	 */
+	protected void sampleOffspring(int from, int to) {
+
+		Random random = ThreadLocalRandom.current();
+		double[] scaled = new double[dimensions];
+
+		double minValue = vectorUtil.getMinValue();
+		double maxValue = vectorUtil.getMaxValue();
+
+		for (int k = from; k < to; k++) {
+
+			int offset = k * dimensions;
+
+			for (int d = 0; d < dimensions; d++) {
+				scaled[d] = deviations[d] * random.nextGaussian();
+			}
+
+			if (separable) {
+				System.arraycopy(scaled, 0, steps, offset, dimensions);
+			} else {
+				for (int i = 0; i < dimensions; i++) {
+					double step = 0;
+					int row = i * dimensions;
+					for (int j = 0; j < dimensions; j++) {
+						step += eigenvectors[row + j] * scaled[j];
+					}
+					steps[offset + i] = step;
+				}
+			}
+
+			for (int d = 0; d < dimensions; d++) {
+				double value = mean[d] + sigma * steps[offset + d];
+				// the values outside of the domain are moved to the nearest bound, and so is the step
+				if (value > maxValue || value < minValue) {
+					value = (value > maxValue) ? maxValue : minValue;
+					steps[offset + d] = (value - mean[d]) / sigma;
+				}
+				values[offset + d] = value;
+			}
+		}
+
+		vectorUtil.evaluate(values, fitnesses, from, to);
+	}
+
+	/**
+	 * Sorts the indices of the offspring in the {@link #ranking}, from the
+	 * best to the worst (an insertion sort, as there are usually few of them).
+	 */
+	private void rankOffspring() {
+
+		for (int k = 0; k < populationSize; k++) {
+			int j = k;
+			while (j > 0 && fitnesses[ranking[j - 1]] < fitnesses[k]) {
+				ranking[j] = ranking[j - 1];
+				j--;
+			}
+			ranking[j] = k;
+		}
+	}
+
+	/**
+	 * Moves the mean to the weighted average of the {@link #mu} best offspring
+	 * and updates the evolution paths, the covariance matrix (the rank-one and
+	 * the rank-mu update) and the step size.
+	 */
+	protected void updateDistribution() {
+
+		int n = dimensions;
+
+		// the weighted average of the best steps, which moves the mean
+		for (int d = 0; d < n; d++) {
+			weightedStep[d] = 0;
+		}
+		for (int i = 0; i < mu; i++) {
+			int offset = ranking[i] * n;
+			for (int d = 0; d < n; d++) {
+				weightedStep[d] += weights[i] * steps[offset + d];
+			}
+		}
+		for (int d = 0; d < n; d++) {
+			mean[d] += sigma * weightedStep[d];
+		}
+
+		// the conjugate evolution path, with C^(-1/2) * weightedStep = B * D^(-1) * B^T * weightedStep
+		double psFactor = Math.sqrt(cs * (2 - cs) * muEff);
+		if (separable) {
+			for (int d = 0; d < n; d++) {
+				ps[d] = (1 - cs) * ps[d] + psFactor * weightedStep[d] / deviations[d];
+			}
+		} else {
+			for (int j = 0; j < n; j++) {
+				double sum = 0;
+				for (int i = 0; i < n; i++) {
+					sum += eigenvectors[i * n + j] * weightedStep[i];
+				}
+				work[j] = sum / deviations[j];
+			}
+			for (int i = 0; i < n; i++) {
+				double sum = 0;
+				int row = i * n;
+				for (int j = 0; j < n; j++) {
+					sum += eigenvectors[row + j] * work[j];
+				}
+				ps[i] = (1 - cs) * ps[i] + psFactor * sum;
+			}
+		}
+		double psNorm = 0;
+		for (int d = 0; d < n; d++) {
+			psNorm += ps[d] * ps[d];
+		}
+		psNorm = Math.sqrt(psNorm);
+
+		// the evolution path of C, stalled while ps is long (so C doesn't grow too fast when sigma increases)
+		boolean hsig = psNorm / Math.sqrt(1 - Math.pow(1 - cs, 2.0 * currentStep)) / chiN < 1.4 + 2.0 / (n + 1);
+		double pcFactor = hsig ? Math.sqrt(cc * (2 - cc) * muEff) : 0;
+		for (int d = 0; d < n; d++) {
+			pc[d] = (1 - cc) * pc[d] + pcFactor * weightedStep[d];
+		}
+
+		// the rank-one and the rank-mu update of C
+		double oldWeight = 1 - c1 - cmu + (hsig ? 0 : c1 * cc * (2 - cc));
+		if (separable) {
+			for (int d = 0; d < n; d++) {
+				double rankMu = 0;
+				for (int i = 0; i < mu; i++) {
+					double step = steps[ranking[i] * n + d];
+					rankMu += weights[i] * step * step;
+				}
+				covariance[d] = oldWeight * covariance[d] + c1 * pc[d] * pc[d] + cmu * rankMu;
+				deviations[d] = Math.sqrt(covariance[d]);
+			}
+		} else {
+			// only the upper triangle is updated, the lower is its mirror
+			for (int i = 0; i < n; i++) {
+				for (int j = i; j < n; j++) {
+					double rankMu = 0;
+					for (int k = 0; k < mu; k++) {
+						int offset = ranking[k] * n;
+						rankMu += weights[k] * steps[offset + i] * steps[offset + j];
+					}
+					double c = oldWeight * covariance[i * n + j] + c1 * pc[i] * pc[j] + cmu * rankMu;
+					covariance[i * n + j] = c;
+					covariance[j * n + i] = c;
+				}
+			}
+		}
+
+		// the step size, increased if ps is longer than expected and decreased if it is shorter
+		sigma *= Math.exp((cs / damps) * (psNorm / chiN - 1));
+	}
+
+	/**
+	 * Decomposes C into its eigenvectors and the standard deviations along
+	 * them (the square roots of the eigenvalues, the ones that came out
+	 * negative due to rounding errors taken as the smallest positive).
+	 */
+	protected void updateEigensystem() {
+
+		System.arraycopy(covariance, 0, eigenvectors, 0, covariance.length);
+		EigenDecomposition.decompose(eigenvectors, dimensions, deviations, work);
+
+		for (int d = 0; d < dimensions; d++) {
+			deviations[d] = Math.sqrt(Math.max(deviations[d], Double.MIN_NORMAL));
+		}
+
+		eigenStep = currentStep;
+	}
+}
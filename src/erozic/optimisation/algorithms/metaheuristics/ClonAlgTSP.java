@@ -7,7 +7,10 @@ import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 import erozic.optimisation.algorithms.OptimisationAlgorithm;
+import erozic.optimisation.algorithms.operators.LinKernighanTSP;
 import erozic.optimisation.solutions.TSPSolution;
+import erozic.optimisation.solutions.TSPTour;
+import erozic.optimisation.utils.LongHashSet;
 import erozic.optimisation.utils.TSPUtil;
 
 /**
@@ -29,7 +32,7 @@ public class ClonAlgTSP extends OptimisationAlgorithm<TSPSolution> {
 	protected double birthFraction = 0.2;
 	/** The cloning factor; clones of i-th antibody = (beta*populationSize)/i */ 
 	protected double beta = 10;
-	/** The hypermutation parameter, {@link #hyperMutation(TSPSolution, int)} */
+	/** The hypermutation parameter, {@link #hyperMutation(TSPTour, int)} */
 	protected double rho = 0.4;
 	// --------------------------------------------------
 	// --------------------------------------------------
@@ -41,6 +44,14 @@ public class ClonAlgTSP extends OptimisationAlgorithm<TSPSolution> {
 	
 	protected List<TSPSolution> antibodies;
 	protected List<TSPSolution> clones;
+	
+	/** A reusable tour (with a position index) used for the mutations of clones */
+	protected TSPTour mutationTour;
+	/** The hashes of the tours of the clones made in the current step */
+	protected LongHashSet cloneTours;
+	
+	/** An optional local search applied to the best new antibody of every step */
+	protected LinKernighanTSP localSearch = null;
 
 	protected TSPUtil tspUtil;
 	protected int numTowns;
@@ -99,6 +110,9 @@ public class ClonAlgTSP extends OptimisationAlgorithm<TSPSolution> {
 			clones.add(new TSPSolution(numTowns));
 		}
 		
+		mutationTour = new TSPTour(numTowns);
+		cloneTours = new LongHashSet(numberOfClones);
+		
 		currentBestSolution = new TSPSolution(numTowns);
 	}
 	
@@ -136,6 +150,11 @@ public class ClonAlgTSP extends OptimisationAlgorithm<TSPSolution> {
 
 		newPopulation();
 		
+		if (localSearch != null) {
+			// the clones were sorted, so the first antibody is the best new one
+			localSearch.improve(antibodies.get(0));
+		}
+		
 		findAndSaveBestSolution();
 		
 		fireStateChanged(antibodies);
@@ -151,7 +170,10 @@ public class ClonAlgTSP extends OptimisationAlgorithm<TSPSolution> {
 	}
 	
 	/**
-	 * Makes the clones, mutates and evaluates them.
+	 * Makes the clones, mutates and evaluates them. A clone whose tour is the same
+	 * as the tour of an already made clone (regardless of the starting town and
+	 * direction) is not evaluated but given an infinite path length, so it doesn't
+	 * waste a place in the new population.
 	 */
 	protected void cloningAndHyperMutation() {
 		
@@ -159,10 +181,13 @@ public class ClonAlgTSP extends OptimisationAlgorithm<TSPSolution> {
 		
 		int cloneIndex = 0;
 		int numSelected = (int)(selectFraction * populationSize);
+		
+		cloneTours.clear();
 
 		for (int i = 0; i < numSelected; i++) {
 
 			TSPSolution original = antibodies.get(i);
+			long originalHash = TSPTour.hash(original.getPath());
 
 			int clonesToMake = (int)((beta * populationSize) / (i + 1));
 			
@@ -170,25 +195,31 @@ public class ClonAlgTSP extends OptimisationAlgorithm<TSPSolution> {
 				
 				TSPSolution clone = clones.get(cloneIndex);
 				clone.setPath(original.getPath());
+				mutationTour.setPath(clone.getPath(), originalHash);
 				
 				if (cloneIndex > 0) {
-					hyperMutation(clone, i+1);
+					hyperMutation(mutationTour, i+1);
+				}
+				
+				if (cloneTours.add(mutationTour.getHash())) {
+					tspUtil.evaluate(clone);
+				} else {
+					clone.setPathLength(Double.POSITIVE_INFINITY);
 				}
-				tspUtil.evaluate(clone);
 				cloneIndex++;
 			}
 		}
 	}
 	
 	/**
-	 * Hypermutates the given antibody (clone) by making a number of mutations that is determined
+	 * Hypermutates the given tour (of a clone) by making a number of mutations that is determined
 	 * by the following formula:<br>
 	 *   1 + cloneSize*rho*(1 - 1/e^(index/tau))<br><br>
 	 *   
-	 * The mutation is done by randomly performing a {@link #segmentFlip(Antibody, int, int)} or a
-	 * {@link #simpleSwitch(TSPSolution, int, int)} on two randomly chosen indices.
+	 * The mutation is done by randomly performing a {@link #segmentFlip(TSPTour, int, int)} or a
+	 * {@link #simpleSwitch(TSPTour, int, int)} on two randomly chosen indices.
 	 */
-	protected void hyperMutation(TSPSolution antibody, int index) {
+	protected void hyperMutation(TSPTour tour, int index) {
 		
 		Random random = ThreadLocalRandom.current();
 		
@@ -209,39 +240,41 @@ public class ClonAlgTSP extends OptimisationAlgorithm<TSPSolution> {
 			}
 			
 			if (random.nextBoolean()) {
-				simpleSwitch(antibody, firstIndex, secondIndex);
+				simpleSwitch(tour, firstIndex, secondIndex);
 			} else {
-				segmentFlip(antibody, firstIndex, secondIndex);
+				segmentFlip(tour, firstIndex, secondIndex);
 			}
 		}
 	}
 	
 	/**
-	 * Performs a simple switch of the elements on the given indices in the given antibody. 
+	 * Performs a simple switch of the elements on the given indices in the given tour. 
 	 */
-	protected void simpleSwitch(TSPSolution antibody, int firstIndex, int secondIndex) {
+	protected void simpleSwitch(TSPTour tour, int firstIndex, int secondIndex) {
 		
 		assert (firstIndex < secondIndex);
 		
-		int temp = antibody.getPath()[firstIndex]; 
-		antibody.getPath()[firstIndex] = antibody.getPath()[secondIndex]; 
-		antibody.getPath()[secondIndex] = temp;	
+		tour.swap(firstIndex, secondIndex);
 	}
 	
 	/**
-	 * Performs a reversal of elements between the given indices of the given antibody.
+	 * Performs a reversal of elements between the given indices of the given tour (or
+	 * of the complementary elements if there are less of them, see
+	 * {@link TSPTour#reverse(int, int)}).
 	 */
-	protected void segmentFlip(TSPSolution antibody, int firstIndex, int secondIndex) {
+	protected void segmentFlip(TSPTour tour, int firstIndex, int secondIndex) {
 		
 		assert (firstIndex < secondIndex);
 		
-		int numSwitches = (secondIndex - firstIndex + 1) / 2; 
-		
-		for (int i = 0; i < numSwitches; i++){
-			int temp = antibody.getPath()[firstIndex+i]; 
-			antibody.getPath()[firstIndex+i] = antibody.getPath()[secondIndex-i]; 
-			antibody.getPath()[secondIndex-i] = temp;
-		}
+		tour.reverse(firstIndex, secondIndex);
+	}
+
+	/**
+	 * Sets a local search to be applied to the best new antibody of every step, or
+	 * none if null is given.
+	 */
+	public void setLocalSearch(LinKernighanTSP localSearch) {
+		this.localSearch = localSearch;
 	}
 
 	/**
@@ -0,0 +1,366 @@
+package erozic.optimisation.algorithms.metaheuristics;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import erozic.optimisation.algorithms.ChunkedJobs;
+import erozic.optimisation.algorithms.OptimisationAlgorithm;
+import erozic.optimisation.algorithms.VectorPopulationView;
+import erozic.optimisation.solutions.VectorSolution;
+import erozic.optimisation.utils.VectorUtil;
+
+/**
+ * An implementation of the Differential Evolution (DE) algorithm for finding
+ * the extremum of a function, with the classic {@link Strategy}s of making the
+ * mutant vectors.
+ *
+ * Every generation a trial vector is made for every individual (the target):
+ * a mutant vector is made of other (random or the best) individuals and
+ * crossed over with the target (binomially, every value is the mutant's with
+ * the probability {@link #crossoverRate} and at least one is), and the trial
+ * vector replaces the target if it is at least as good. The values outside of
+ * the domain are wrapped back inside, as if it had cyclic boundary conditions
+ * (see {@link VectorUtil#addToValues}).
+ *
+ * The population is stored as a "structure of arrays": the values of all the
+ * individuals are in a single array (individual after individual), and so are
+ * the trial vectors, and their fitnesses are in arrays of their own. The trial
+ * vectors are made only of the current population, so they can all be made
+ * and evaluated at once - split into disjoint chunks (a few per thread) which
+ * are run on a thread pool (see {@link ChunkedJobs}) - before the selection.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class DifferentialEvolution extends OptimisationAlgorithm<VectorSolution> {
+
+	/**
+	 * The ways of making the mutant vector of a target x_i, with r1, r2, ...
+	 * different random individuals (other than the target), x_best the best
+	 * individual at the beginning of the generation and F the
+	 * {@link DifferentialEvolution#differentialWeight}.
+	 */
+	public enum Strategy {
+		/** x_r1 + F * (x_r2 - x_r3) */
+		RAND_1_BIN(3),
+		/** x_best + F * (x_r1 - x_r2) */
+		BEST_1_BIN(2),
+		/** x_i + F * (x_best - x_i) + F * (x_r1 - x_r2) */
+		RAND_TO_BEST_1_BIN(2),
+		/** x_r1 + F * (x_r2 - x_r3) + F * (x_r4 - x_r5) */
+		RAND_2_BIN(5),
+		/** x_best + F * (x_r1 - x_r2) + F * (x_r3 - x_r4) */
+		BEST_2_BIN(4),
+		/**
+		 * x_i + K * (x_r1 - x_i) + F * (x_r2 - x_r3), with K uniformly random
+		 * from [0, 1] for every target, and no crossover (the mutant vector is
+		 * the trial vector), which makes it rotationally invariant
+		 */
+		CURRENT_TO_RAND_1(3);
+
+		/** The number of random individuals the strategy needs */
+		private final int numRandom;
+
+		private Strategy(int numRandom) {
+			this.numRandom = numRandom;
+		}
+	}
+
+	// --------------------------------------------------
+	// -- ALGORITHM PARAMETERS --------------------------
+	// --------------------------------------------------
+	/** How the mutant vectors are made */
+	protected Strategy strategy;
+	/** The number of individuals in the population */
+	protected int populationSize;
+	/** How much the differences of the vectors are scaled (F) */
+	protected double differentialWeight;
+	/** The probability of a value of the trial vector being the mutant's (CR) */
+	protected double crossoverRate;
+	/** Number of threads to make the trial vectors on (1 means the algorithm thread) */
+	protected int numThreads = 1;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	/** The values of the individuals, {@link #dimensions} values per individual */
+	protected double[] values;
+	protected double[] fitnesses;
+	/** The trial vectors of the individuals, the same layout as the {@link #values} */
+	protected double[] trials;
+	protected double[] trialFitnesses;
+
+	/** The index of the best individual at the beginning of the generation */
+	protected int best;
+
+	protected VectorUtil vectorUtil;
+	protected int dimensions;
+
+	/** A view of the population for the listeners */
+	private List<VectorSolution> population;
+
+	/** The chunks of the targets the trial vectors are made for on multiple threads */
+	private ChunkedJobs jobs;
+
+	/**
+	 * Calls the other constructor with maxSteps = Integer.MAX_Value.
+	 */
+	public DifferentialEvolution(VectorUtil vectorUtil, Strategy strategy, int populationSize,
+			double differentialWeight, double crossoverRate, int numThreads) {
+		this(vectorUtil, strategy, populationSize, differentialWeight, crossoverRate, numThreads, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Sets all the algorithm parameters.
+	 *
+	 * @param vectorUtil
+	 *            Holds all the problem-specific information (function etc.)
+	 * @param strategy
+	 *            {@link #strategy}
+	 * @param populationSize
+	 *            {@link #populationSize}
+	 * @param differentialWeight
+	 *            {@link #differentialWeight}
+	 * @param crossoverRate
+	 *            {@link #crossoverRate}
+	 * @param numThreads
+	 *            {@link #numThreads}
+	 * @param maxSteps
+	 *            {@link OptimisationAlgorithm#OptimisationAlgorithm(int)}
+	 */
+	public DifferentialEvolution(VectorUtil vectorUtil, Strategy strategy, int populationSize,
+			double differentialWeight, double crossoverRate, int numThreads, int maxSteps) {
+		super(maxSteps);
+
+		if (populationSize <= strategy.numRandom)
+			throw new IllegalArgumentException("The " + strategy + " strategy needs a population of more than "
+					+ strategy.numRandom + " individuals, not " + populationSize + "!");
+		if (crossoverRate < 0 || crossoverRate > 1)
+			throw new IllegalArgumentException("The crossover rate has to be in [0, 1], not " + crossoverRate + "!");
+		if (numThreads < 1)
+			throw new IllegalArgumentException("The number of threads has to be positive, not " + numThreads + "!");
+
+		this.vectorUtil = vectorUtil;
+		this.dimensions = vectorUtil.getDimensions();
+		this.strategy = strategy;
+		this.populationSize = populationSize;
+		this.differentialWeight = differentialWeight;
+		this.crossoverRate = crossoverRate;
+		this.numThreads = numThreads;
+
+		values = new double[populationSize * dimensions];
+		fitnesses = new double[populationSize];
+		trials = new double[populationSize * dimensions];
+		trialFitnesses = new double[populationSize];
+
+		population = new VectorPopulationView(values, fitnesses, dimensions);
+	}
+
+	/**
+	 * Finds the {@link #best} individual and, if it is the best so far, saves
+	 * it and fires an update event.
+	 */
+	private void findAndSaveBestSolution() {
+
+		best = 0;
+		for (int i = 1; i < populationSize; i++) {
+			if (fitnesses[i] > fitnesses[best]) {
+				best = i;
+			}
+		}
+
+		if (fitnesses[best] > currentBestSolution.getFitness()) {
+			System.arraycopy(values, best * dimensions, currentBestSolution.getValues(), 0, dimensions);
+			currentBestSolution.setFitness(fitnesses[best]);
+			fireCurrentBestSolutionUpdated(currentBestSolution);
+		}
+	}
+
+	@Override
+	protected void algorithmStart() {
+
+		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
+				+ " started on " + numThreads + " threads with parameters: strategy = " + strategy
+				+ ", populationSize = " + populationSize + ", differentialWeight = " + differentialWeight
+				+ ", crossoverRate = " + crossoverRate);
+
+		generateInitialPopulation();
+
+		findAndSaveBestSolution();
+
+		if (numThreads > 1) {
+			jobs = new ChunkedJobs(numThreads, populationSize, this::makeTrials);
+		}
+	}
+
+	@Override
+	protected void algorithmStep() {
+
+		makeTrials();
+
+		selection();
+
+		findAndSaveBestSolution();
+
+		fireStateChanged(population);
+	}
+
+	@Override
+	protected void algorithmEnd() {
+
+		if (jobs != null)
+			jobs.shutdown();
+
+		fireFinalSolutionFound(currentBestSolution);
+
+		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
+				+ " ended.");
+	}
+
+	/**
+	 * Generates the initial (random) population and evaluates it all at once.
+	 */
+	private void generateInitialPopulation() {
+
+		Random random = ThreadLocalRandom.current();
+
+		double minValue = vectorUtil.getMinValue();
+		double maxValue = vectorUtil.getMaxValue();
+
+		for (int k = 0; k < values.length; k++) {
+			values[k] = random.nextDouble() * (maxValue - minValue) + minValue;
+		}
+		vectorUtil.evaluate(values, fitnesses, 0, populationSize);
+
+		currentBestSolution = new VectorSolution(dimensions);
+		System.arraycopy(values, 0, currentBestSolution.getValues(), 0, dimensions);
+		currentBestSolution.setFitness(fitnesses[0]);
+	}
+
+	/**
+	 * Makes and evaluates all the trial vectors, on the algorithm thread or by
+	 * running all the {@link #jobs}.
+	 */
+	protected void makeTrials() {
+
+		if (jobs == null) {
+			makeTrials(0, populationSize);
+		} else {
+			jobs.invokeAll();
+		}
+	}
+
+	/**
+	 * Makes the trial vectors of the targets from "from" (inclusive) to "to"
+	 * (exclusive) and evaluates them (all at once).
+	 */
+	protected void makeTrials(int from, int to) {
+
+		Random random = ThreadLocalRandom.current();
+		int[] r = new int[strategy.numRandom];
+
+		for (int i = from; i < to; i++) {
+			pickRandom(i, r, random);
+			makeTrial(i, r, random);
+		}
+
+		vectorUtil.evaluate(trials, trialFitnesses, from, to);
+	}
+
+	/**
+	 * Picks different random individuals, other than the target, into the
+	 * given array.
+	 */
+	private void pickRandom(int target, int[] r, Random random) {
+
+		for (int k = 0; k < r.length; k++) {
+			int candidate;
+			boolean taken;
+			do {
+				candidate = random.nextInt(populationSize);
+				taken = (candidate == target);
+				for (int j = 0; j < k && !taken; j++) {
+					taken = (r[j] == candidate);
+				}
+			} while (taken);
+			r[k] = candidate;
+		}
+	}
+
+	/**
+	 * Makes the trial vector of the target with the given index from the
+	 * given random individuals, in a single pass over its values.
+	 */
+	private void makeTrial(int i, int[] r, Random random) {
+
+		double minValue = vectorUtil.getMinValue();
+		double maxValue = vectorUtil.getMaxValue();
+		double f = differentialWeight;
+
+		int target = i * dimensions;
+		int bestOffset = best * dimensions;
+		int r1 = r[0] * dimensions;
+		int r2 = r[1] * dimensions;
+		int r3 = (r.length > 2) ? r[2] * dimensions : 0;
+		int r4 = (r.length > 3) ? r[3] * dimensions : 0;
+		int r5 = (r.length > 4) ? r[4] * dimensions : 0;
+
+		// the one value that is surely the mutant's, and K of CURRENT_TO_RAND_1
+		int forced = random.nextInt(dimensions);
+		double k = random.nextDouble();
+
+		for (int d = 0; d < dimensions; d++) {
+
+			double value;
+			if (strategy != Strategy.CURRENT_TO_RAND_1 && d != forced && random.nextDouble() >= crossoverRate) {
+				value = values[target + d];
+			} else {
+				switch (strategy) {
+				case RAND_1_BIN:
+					value = values[r1 + d] + f * (values[r2 + d] - values[r3 + d]);
+					break;
+				case BEST_1_BIN:
+					value = values[bestOffset + d] + f * (values[r1 + d] - values[r2 + d]);
+					break;
+				case RAND_TO_BEST_1_BIN:
+					value = values[target + d] + f * (values[bestOffset + d] - values[target + d])
+							+ f * (values[r1 + d] - values[r2 + d]);
+					break;
+				case RAND_2_BIN:
+					value = values[r1 + d] + f * (values[r2 + d] - values[r3 + d])
+							+ f * (values[r4 + d] - values[r5 + d]);
+					break;
+				case BEST_2_BIN:
+					value = values[bestOffset + d] + f * (values[r1 + d] - values[r2 + d])
+							+ f * (values[r3 + d] - values[r4 + d]);
+					break;
+				case CURRENT_TO_RAND_1:
+					value = values[target + d] + k * (values[r1 + d] - values[target + d])
+							+ f * (values[r2 + d] - values[r3 + d]);
+					break;
+				default:
+					throw new IllegalStateException("Unknown strategy " + strategy + "!");
+				}
+				// the values outside of the domain are wrapped back inside (even from more than a range away)
+				if (value > maxValue || value < minValue) {
+					double range = maxValue - minValue;
+					value = minValue + ((value - minValue) % range + range) % range;
+				}
+			}
+			trials[target + d] = value;
+		}
+	}
+
+	/**
+	 * Replaces every target with its trial vector if that is at least as good.
+	 */
+	protected void selection() {
+
+		for (int i = 0; i < populationSize; i++) {
+			if (trialFitnesses[i] >= fitnesses[i]) {
+				System.arraycopy(trials, i * dimensions, values, i * dimensions, dimensions);
+				fitnesses[i] = trialFitnesses[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package erozic.optimisation.algorithms.metaheuristics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import erozic.optimisation.algorithms.OptimisationAlgorithm;
+import erozic.optimisation.algorithms.operators.EdgeAssemblyCrossoverTSP;
+import erozic.optimisation.algorithms.operators.LinKernighanTSP;
+import erozic.optimisation.solutions.TSPSolution;
+import erozic.optimisation.utils.TSPUtil;
+
+/**
+ * An implementation of a genetic algorithm using the Edge Assembly Crossover
+ * ({@link EdgeAssemblyCrossoverTSP}) applied to solving the TSP problem.
+ *
+ * The initial population consists of random paths brought to a local optimum
+ * with the {@link LinKernighanTSP} operator. In every generation the population
+ * is randomly ordered and every individual is crossed with the next one (the
+ * last one with the first); the best of the children replaces the first parent
+ * if it is shorter than it (there is no mutation, all the variation comes from
+ * the crossover).
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class EAXGeneticAlgorithmTSP extends OptimisationAlgorithm<TSPSolution> {
+
+	// --------------------------------------------------
+	// -- ALGORITHM PARAMETERS --------------------------
+	// --------------------------------------------------
+	/** The number of individuals in the population */
+	protected int populationSize = 100;
+	/** The (maximum) number of children made by every pair of parents */
+	protected int numChildren = 30;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	protected List<TSPSolution> population;
+	/** The order in which the individuals are paired in a generation */
+	private int[] order;
+
+	protected EdgeAssemblyCrossoverTSP crossover;
+	protected LinKernighanTSP localSearch;
+
+	protected TSPUtil tspUtil;
+	protected int numTowns;
+
+	/**
+	 * Sets all the algorithm parameters and prepares it to run.
+	 *
+	 * @param maxSteps {@link OptimisationAlgorithm#OptimisationAlgorithm(int)}
+	 */
+	public EAXGeneticAlgorithmTSP(TSPUtil tspUtil, int populationSize, int numChildren, int maxSteps) {
+		super(maxSteps);
+		this.populationSize = populationSize;
+		this.numChildren = numChildren;
+
+		initialise(tspUtil);
+	}
+
+	/**
+	 * Sets the maximum number of steps to Integer.MAX_VALUE and everything else the same as in
+	 * {@link #EAXGeneticAlgorithmTSP(TSPUtil, int, int, int)}.
+	 *
+	 * @see OptimisationAlgorithm#OptimisationAlgorithm()
+	 */
+	public EAXGeneticAlgorithmTSP(TSPUtil tspUtil, int populationSize, int numChildren) {
+		this(tspUtil, populationSize, numChildren, Integer.MAX_VALUE);
+	}
+
+	private void initialise(TSPUtil tspUtil) {
+		this.tspUtil = tspUtil;
+		this.numTowns = tspUtil.getNumTowns();
+
+		crossover = new EdgeAssemblyCrossoverTSP(tspUtil);
+		localSearch = new LinKernighanTSP(tspUtil);
+
+		population = new ArrayList<TSPSolution>(populationSize);
+		for (int i = 0; i < populationSize; i++) {
+			population.add(tspUtil.generateRandom());
+		}
+
+		order = new int[populationSize];
+		for (int i = 0; i < populationSize; i++) {
+			order[i] = i;
+		}
+
+		currentBestSolution = new TSPSolution(numTowns);
+	}
+
+	/**
+	 * Does what it says + fires an update event
+	 */
+	private void findAndSaveBestSolution() {
+
+		TSPSolution bestInPopulation = population.get(0);
+		for (int i = 1; i < populationSize; i++) {
+			if (population.get(i).compareTo(bestInPopulation) < 0) {
+				bestInPopulation = population.get(i);
+			}
+		}
+
+		if (currentBestSolution.compareTo(bestInPopulation) > 0) {
+			currentBestSolution.makeACloneOf(bestInPopulation);
+			fireCurrentBestSolutionUpdated(currentBestSolution);
+		}
+	}
+
+	@Override
+	protected void algorithmStart() {
+		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
+				+ " started with parameters: " + "populationSize = " + populationSize + ", numChildren = "
+				+ numChildren);
+
+		for (TSPSolution individual : population) {
+			localSearch.improve(individual);
+		}
+
+		findAndSaveBestSolution();
+	}
+
+	@Override
+	protected void algorithmStep() {
+
+		tspUtil.shuffleArray(order);
+
+		for (int i = 0; i < populationSize; i++) {
+			TSPSolution parentA = population.get(order[i]);
+			TSPSolution parentB = population.get(order[i == populationSize - 1 ? 0 : i + 1]);
+			crossover.crossover(parentA, parentB, numChildren);
+		}
+
+		findAndSaveBestSolution();
+
+		fireStateChanged(population);
+	}
+
+	@Override
+	protected void algorithmEnd() {
+
+		fireFinalSolutionFound(currentBestSolution);
+
+		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
+				+ " ended.");
+	}
+}
@@ -1,12 +1,11 @@
 package erozic.optimisation.algorithms.metaheuristics;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
-
 import erozic.optimisation.algorithms.OptimisationAlgorithm;
+import erozic.optimisation.algorithms.operators.BinaryCrossover;
+import erozic.optimisation.algorithms.operators.Crossover;
+import erozic.optimisation.algorithms.operators.ElitistReplacement;
+import erozic.optimisation.algorithms.operators.GeometricBitFlipMutation;
+import erozic.optimisation.algorithms.operators.TournamentSelection;
 import erozic.optimisation.solutions.BinarySolution;
 import erozic.optimisation.utils.BinaryUtil;
 import erozic.optimisation.utils.BinaryVectorUtil;
@@ -15,35 +14,50 @@ import erozic.optimisation.utils.BinaryVectorUtil;
  * A generation elite genetic algorithm implementation for finding a solution to
  * a problem defined in an implementation of the {@link BinaryUtil} using individuals
  * with a genotypic representation ({@link BinarySolution}.
- * 
+ *
+ * It is the {@link GeneticAlgorithm} with a 2-tournament selection, a
+ * single-point crossover (see {@link BinaryCrossover#SINGLE_POINT}), a
+ * bit-flip mutation (see {@link GeometricBitFlipMutation}) and an
+ * {@link ElitistReplacement}, which makes it elitist: the fittest of the
+ * current population and its children together make the next population, so
+ * the best are kept in the "gene pool" and can't be lost. The children of a
+ * chunk are evaluated all at once (see
+ * {@link BinaryUtil#evaluate(java.util.List, int, int)}).
+ *
+ * Without the crossover (see {@link #setCrossover(Crossover)}) every child is
+ * a mutated copy of a parent, so it is re-evaluated only where its bits were
+ * flipped (see {@link BinaryUtil#evaluate(BinarySolution, int[], int)}), from
+ * the evaluation state it got from the parent; the individuals made that way
+ * are the only ones that keep an evaluation state.
+ *
  * @author Eugen Rožić
  *
  */
-public class GenerationEliteBinaryGA extends OptimisationAlgorithm<BinarySolution> {
+public class GenerationEliteBinaryGA extends GeneticAlgorithm<BinarySolution> {
 
 	// --------------------------------------------------
 	// -- ALGORITHM PARAMETERS --------------------------
 	// --------------------------------------------------
-	/** Number of individuals in a population (generation) */
-	protected int populationSize = 50;
-	/** How many children will there be in the {@link #nextGeneration} */
+	/**
+	 * How many children are made in a generation, as a multiple of the
+	 * {@link #populationSize}: (int) (procreationFactor * populationSize),
+	 * rounded up to an even number (see {@link GeneticAlgorithm#numChildren})
+	 */
 	protected double procreationFactor = 2;
 	/** The probability of a single-bit mutation */
 	protected double mutationRate = 0.03;
 	// --------------------------------------------------
 	// --------------------------------------------------
-	
-	private int nextGenerationSize;
-
-	protected List<BinarySolution> activePopulation;
-	private List<BinarySolution> nextGeneration;
 
 	/** Holds all necessary (input) information to handle the individuals */
 	protected BinaryUtil decoderUtil;
 
+	/** The mutation operators of the threads, whose flipped positions the re-evaluation uses */
+	private GeometricBitFlipMutation.PerThread mutationOperators;
+
 	/**
 	 * Sets the maximum number of steps (maxSteps) to Integer.MAX_VALUE.
-	 * 
+	 *
 	 * @see GenerationEliteBinaryGA#GenerationEliteBinaryGA(BinaryVectorUtil,
 	 *      int, double, double, int)
 	 */
@@ -54,7 +68,7 @@ public class GenerationEliteBinaryGA extends OptimisationAlgorithm<BinarySolutio
 
 	/**
 	 * Sets all the algorithm parameters and class variables.
-	 * 
+	 *
 	 * @param decoderUtil
 	 *            Holds the problem-specific information (function etc.)
 	 * @param populationSize
@@ -68,190 +82,64 @@ public class GenerationEliteBinaryGA extends OptimisationAlgorithm<BinarySolutio
 	 */
 	public GenerationEliteBinaryGA(BinaryUtil decoderUtil, int populationSize, double procreationFactor,
 			double mutationRate, int maxSteps) {
-		super(maxSteps);
-
-		this.decoderUtil = decoderUtil;
-		this.populationSize = populationSize;
-		this.procreationFactor = procreationFactor;
-		this.mutationRate = mutationRate;
-
-		nextGenerationSize = (int) (procreationFactor * populationSize);
-
-		activePopulation = new ArrayList<BinarySolution>(populationSize);
-		currentBestSolution = new BinarySolution(decoderUtil.getNumBits());
+		this(1, decoderUtil, populationSize, procreationFactor, mutationRate, maxSteps);
 	}
 
 	/**
-	 * Does what it says + fires an update event
+	 * Also sets the number of threads to make the children on.
+	 *
+	 * @see GenerationEliteBinaryGA#GenerationEliteBinaryGA(BinaryUtil, int,
+	 *      double, double, int)
 	 */
-	private void findAndSaveBestSolution() {
-
-		BinarySolution bestInPopulation = activePopulation.get(0);
-		for (BinarySolution individual : activePopulation) {
-			if (individual.compareTo(bestInPopulation) < 0) {
-				bestInPopulation = individual;
-			}
-		}
-
-		if (currentBestSolution.compareTo(bestInPopulation) > 0) {
-			currentBestSolution.makeACloneOf(bestInPopulation);
-			fireCurrentBestSolutionUpdated(currentBestSolution);
-		}
+	protected GenerationEliteBinaryGA(int numThreads, BinaryUtil decoderUtil, int populationSize,
+			double procreationFactor, double mutationRate, int maxSteps) {
+		this(numThreads, decoderUtil, populationSize, procreationFactor, mutationRate,
+				GeometricBitFlipMutation.perThread(mutationRate, decoderUtil.getNumBits()), maxSteps);
 	}
-	
-	@Override
-	protected void algorithmStart() {
-		
-		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
-				+ " started with parameters: " + "populationSize = " + populationSize + ", procreationFactor = "
-				+ procreationFactor + ", mutationRate = " + mutationRate);
-		
-		generateInitialPopulation();
 
-		findAndSaveBestSolution();
-	}
-	
-	@Override
-	protected void algorithmStep() {
-		
-		reproduction();
-		
-		makeNewPopulation();
-		
-		findAndSaveBestSolution();
-		
-		fireStateChanged(activePopulation);
-	}
-	
-	@Override
-	protected void algorithmEnd() {
-		
-		fireFinalSolutionFound(currentBestSolution);
-		
-		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
-				+ " ended.");
-	}
-
-	/**
-	 * Generates the initial (random) {@link #activePopulation} with their
-	 * fitnesses calculated.
-	 */
-	private void generateInitialPopulation() {
+	private GenerationEliteBinaryGA(int numThreads, BinaryUtil decoderUtil, int populationSize,
+			double procreationFactor, double mutationRate, GeometricBitFlipMutation.PerThread mutationOperators,
+			int maxSteps) {
+		super(decoderUtil, new TournamentSelection<BinarySolution>(2), BinaryCrossover.SINGLE_POINT,
+				mutationOperators, new ElitistReplacement<BinarySolution>(), populationSize,
+				(int) (procreationFactor * populationSize), numThreads, maxSteps);
 
-		for (int i = 0; i < populationSize; i++) {
-			activePopulation.add(decoderUtil.generateRandom());
-		}
+		this.mutationOperators = mutationOperators;
+		this.decoderUtil = decoderUtil;
+		this.procreationFactor = procreationFactor;
+		this.mutationRate = mutationRate;
 	}
 
 	/**
-	 * Generates the individuals of the {@link #nextGeneration}, i.e. the
-	 * children, by successive {@link #selection()} of two parents, their
-	 * {@link #crossover(BinaryIndividual, BinaryIndividual)} to create two
-	 * children and the {@link #mutation(BinaryIndividual)} and
-	 * {@link #evaluation(BinaryIndividual)} of those new individuals.
+	 * Without the crossover copies a parent into every place, mutates it and
+	 * re-evaluates it from the flipped positions; otherwise see
+	 * {@link GeneticAlgorithm#reproduction(int, int)}.
 	 */
-	private void reproduction() {
-
-		nextGeneration = new ArrayList<BinarySolution>(nextGenerationSize);
-
-		while (nextGeneration.size() < nextGenerationSize) {
-
-			BinarySolution parent1 = selection();
-			BinarySolution parent2 = selection();
-
-			BinarySolution[] children = crossover(parent1, parent2);
-
-			mutation(children[0]);
-			mutation(children[1]);
+	@Override
+	protected void reproduction(int from, int to) {
 
-			nextGeneration.add(decoderUtil.evaluate(children[0]));
-			nextGeneration.add(decoderUtil.evaluate(children[1]));
+		if (crossover != null) {
+			super.reproduction(from, to);
+			return;
 		}
-	}
 
-	/**
-	 * Merges the current {@link #activePopulation} and {@link #nextGeneration}
-	 * and makes a new {@link #activePopulation} from the fittest
-	 * {@link #populationSize} of them.
-	 * 
-	 * This is what makes the algorithm elitist, because the best are kept in
-	 * the "gene pool" and can't be lost.
-	 */
-	private void makeNewPopulation() {
-
-		activePopulation.addAll(nextGeneration);
-		Collections.sort(activePopulation);
-		// This seems the fastest way. Sublist view is no good cause it would accumulate
-		// through iterations.
-		activePopulation = new ArrayList<BinarySolution>(activePopulation.subList(0, populationSize));
-	}
-
-	/**
-	 * A 2-tournament selection operator - just picks 2 individuals from the
-	 * {@link #activePopulation} at random and returns the better one.
-	 * 
-	 * This implements selection pressure because better individuals will have a
-	 * larger chance of reproducing.
-	 */
-	protected BinarySolution selection() {
-		
-		Random random = ThreadLocalRandom.current();
-
-		BinarySolution first = activePopulation.get(random.nextInt(populationSize));
-		BinarySolution second = activePopulation.get(random.nextInt(populationSize));
-
-		if (first.getFitness() > second.getFitness())
-			return first;
-		else
-			return second;
-	}
-
-	/**
-	 * A basic, single-point crossover operator implementation.
-	 * 
-	 * @return A couple of children individuals
-	 */
-	protected BinarySolution[] crossover(BinarySolution parent1, BinarySolution parent2) {
-		
-		Random random = ThreadLocalRandom.current();
-
-		BinarySolution[] children = new BinarySolution[2];
-
-		byte[] child1 = new byte[decoderUtil.getNumBits()];
-		byte[] child2 = new byte[decoderUtil.getNumBits()];
-
-		int crossoverPoint = random.nextInt(decoderUtil.getNumBits() - 1) + 1;
-		for (int i = 0; i < crossoverPoint; i++) {
-			child1[i] = parent1.getGenotype()[i];
-			child2[i] = parent2.getGenotype()[i];
+		GeometricBitFlipMutation mutationOperator = mutationOperators.current();
+		for (int i = from; i < to; i++) {
+			BinarySolution child = pool.get(i);
+			child.makeACloneOf(selection.select(activePopulation));
+			int numFlipped = mutationOperator.mutate(child);
+			decoderUtil.evaluate(child, mutationOperator.getFlippedPositions(), numFlipped);
 		}
-		for (int i = crossoverPoint; i < decoderUtil.getNumBits(); i++) {
-			child1[i] = parent2.getGenotype()[i];
-			child2[i] = parent1.getGenotype()[i];
-		}
-
-		children[0] = new BinarySolution(child1);
-		children[1] = new BinarySolution(child2);
-
-		return children;
 	}
 
 	/**
-	 * A basic mutation operator implementation - just flips each bit of the
-	 * given individual's genotype with {@link #mutationRate} probability.
-	 * 
-	 * TODO A problem is a lot of calls to the random generator...
-	 * 
-	 * @return a reference to the passed individual, just for convenience
+	 * Evaluates the children all at once, see
+	 * {@link BinaryUtil#evaluate(java.util.List, int, int)}.
 	 */
-	protected BinarySolution mutation(BinarySolution individual) {
-		
-		Random random = ThreadLocalRandom.current();
+	@Override
+	protected void evaluate(int from, int to) {
 
-		for (int i = 0; i < decoderUtil.getNumBits(); i++)
-			if (random.nextDouble() < mutationRate)
-				(individual.getGenotype())[i] ^= (byte) 1;
-		return individual;
+		decoderUtil.evaluate(pool, from, to);
 	}
-	
+
 }
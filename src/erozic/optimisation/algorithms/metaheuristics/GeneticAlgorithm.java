@@ -0,0 +1,419 @@
+package erozic.optimisation.algorithms.metaheuristics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import erozic.optimisation.algorithms.ChunkedJobs;
+import erozic.optimisation.algorithms.OptimisationAlgorithm;
+import erozic.optimisation.algorithms.operators.Crossover;
+import erozic.optimisation.algorithms.operators.ElitistReplacement;
+import erozic.optimisation.algorithms.operators.Mutation;
+import erozic.optimisation.algorithms.operators.Replacement;
+import erozic.optimisation.algorithms.operators.Selection;
+import erozic.optimisation.solutions.Solution;
+import erozic.optimisation.utils.SolutionUtil;
+
+/**
+ * A generational genetic algorithm for any kind of {@link Solution}, put
+ * together from pluggable operators: a {@link Selection}, a {@link Crossover},
+ * a {@link Mutation} and a {@link Replacement} (e.g. an
+ * {@link ElitistReplacement}, which makes it a generation elite GA). The
+ * problem is defined by a {@link SolutionUtil}.
+ *
+ * All the individuals live in a {@link #pool}: the active population at the
+ * beginning of it and the children after it. The children are made in place
+ * of the individuals that didn't survive the previous generation, so (if the
+ * operators don't allocate) no garbage is produced by the generations.
+ *
+ * The children are made in chunks of their places - every child goes through
+ * the selection of the parents, crossover and mutation, and then the whole
+ * chunk is evaluated (see {@link #evaluate(int, int)}, which can be overridden
+ * to evaluate it at once) - and the chunks (a few per thread) can be run on a
+ * thread pool (see {@link ChunkedJobs}), to make the children on multiple
+ * threads. The operators then have to be thread-safe.
+ *
+ * Without a crossover (see {@link #setCrossover(Crossover)}) it is a
+ * mutation-only GA: every child is a mutated copy of a single selected parent.
+ *
+ * An offspring selection can be added by overriding
+ * {@link #isAcceptable(Solution, Solution, Solution)}: the places of the
+ * rejected children are used for more children (made and evaluated together
+ * again), until all the places hold accepted children or the
+ * {@link #maxEffort} is spent. Only the accepted children are given to the
+ * replacement (see {@link #replacement()}), which can also change the size of
+ * the population (up to the {@link #maxPopulationSize}).
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class GeneticAlgorithm<T extends Solution> extends OptimisationAlgorithm<T> {
+
+	// --------------------------------------------------
+	// -- ALGORITHM PARAMETERS --------------------------
+	// --------------------------------------------------
+	/** Number of individuals in a population (generation) */
+	protected int populationSize;
+	/** Number of children made in a generation (rounded up to an even number) */
+	protected int numChildren;
+	/** Number of threads to make the children on (1 means the algorithm thread) */
+	protected int numThreads = 1;
+	/**
+	 * The maximum number of children made in a generation, more than the
+	 * {@link #numChildren} only if some children are rejected (see
+	 * {@link #isAcceptable(Solution, Solution, Solution)}); the chunks of the
+	 * children get shares of it proportional to their sizes
+	 */
+	protected int maxEffort;
+	/**
+	 * The size the population can grow to (see {@link #replacement()}), the
+	 * {@link #populationSize} unless a subclass changes it before the algorithm
+	 * is started
+	 */
+	protected int maxPopulationSize;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	/** Holds all necessary (input) information to handle the individuals */
+	protected SolutionUtil<T> solutionUtil;
+
+	protected Selection<T> selection;
+	protected Crossover<T> crossover;
+	protected Mutation<T> mutation;
+	protected Replacement<T> replacement;
+
+	/**
+	 * All the individuals: the {@link #activePopulation} is in the first
+	 * {@link #populationSize} places and the children of a generation after it
+	 */
+	protected List<T> pool;
+	/**
+	 * A view of the first {@link #populationSize} individuals in the
+	 * {@link #pool} (made again when the population size changes)
+	 */
+	protected List<T> activePopulation;
+	/**
+	 * How many accepted children there are after the {@link #activePopulation}
+	 * at the end of the reproduction (all the {@link #numChildren} without an
+	 * offspring selection)
+	 */
+	protected int numAccepted;
+
+	/** The two parents of the child in every place of the {@link #pool} */
+	private List<T> parents;
+	/** Which places of the children were left without an accepted child */
+	private boolean[] rejected;
+	/** A child each thread makes the second child of a pair in when there is only one place for it */
+	private ThreadLocal<T> spareChild;
+
+	/** The (even sized) chunks of the places of the children made on multiple threads */
+	private ChunkedJobs jobs;
+
+	/**
+	 * Calls the other constructor with maxSteps = Integer.MAX_Value.
+	 */
+	public GeneticAlgorithm(SolutionUtil<T> solutionUtil, Selection<T> selection, Crossover<T> crossover,
+			Mutation<T> mutation, Replacement<T> replacement, int populationSize, int numChildren, int numThreads) {
+		this(solutionUtil, selection, crossover, mutation, replacement, populationSize, numChildren, numThreads,
+				Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Sets all the algorithm parameters and operators.
+	 *
+	 * @param solutionUtil
+	 *            {@link #solutionUtil}
+	 * @param selection
+	 *            chooses the parents
+	 * @param crossover
+	 *            makes the children of the parents (null for a mutation-only
+	 *            GA, see {@link #setCrossover(Crossover)})
+	 * @param mutation
+	 *            mutates the children
+	 * @param replacement
+	 *            chooses the next population (it can be null if
+	 *            {@link #replacement()} is overridden not to use it)
+	 * @param populationSize
+	 *            {@link #populationSize}
+	 * @param numChildren
+	 *            {@link #numChildren}
+	 * @param numThreads
+	 *            {@link #numThreads}
+	 * @param maxSteps
+	 *            {@link OptimisationAlgorithm#OptimisationAlgorithm(int)}
+	 */
+	public GeneticAlgorithm(SolutionUtil<T> solutionUtil, Selection<T> selection, Crossover<T> crossover,
+			Mutation<T> mutation, Replacement<T> replacement, int populationSize, int numChildren, int numThreads,
+			int maxSteps) {
+		super(maxSteps);
+
+		if (populationSize < 1 || numChildren < 1 || numThreads < 1)
+			throw new IllegalArgumentException("The population size, number of children and number of threads have"
+					+ " to be positive!");
+
+		this.solutionUtil = solutionUtil;
+		this.selection = selection;
+		this.crossover = crossover;
+		this.mutation = mutation;
+		this.replacement = replacement;
+		this.populationSize = populationSize;
+		// the children are made in pairs
+		this.numChildren = numChildren + numChildren % 2;
+		this.numThreads = numThreads;
+		this.maxEffort = this.numChildren;
+		this.maxPopulationSize = populationSize;
+
+		spareChild = ThreadLocal.withInitial(solutionUtil::newSolution);
+	}
+
+	/**
+	 * Sets the crossover operator, or null to make every child a mutated copy
+	 * of a single parent (a mutation-only GA). It should be set before the
+	 * algorithm is run.
+	 */
+	public void setCrossover(Crossover<T> crossover) {
+		this.crossover = crossover;
+	}
+
+	/**
+	 * Sets the {@link #maxEffort} (the {@link #numChildren} by default), it
+	 * should be set before the algorithm is run.
+	 */
+	public void setMaxEffort(int maxEffort) {
+		if (maxEffort < 1)
+			throw new IllegalArgumentException("The maximum effort has to be positive, not " + maxEffort + "!");
+		this.maxEffort = maxEffort;
+	}
+
+	/**
+	 * Does what it says + fires an update event
+	 */
+	private void findAndSaveBestSolution() {
+
+		T bestInPopulation = activePopulation.get(0);
+		for (T individual : activePopulation) {
+			if (individual.compareTo(bestInPopulation) < 0) {
+				bestInPopulation = individual;
+			}
+		}
+
+		if (currentBestSolution.compareTo(bestInPopulation) > 0) {
+			currentBestSolution.makeACloneOf(bestInPopulation);
+			fireCurrentBestSolutionUpdated(currentBestSolution);
+		}
+	}
+
+	@Override
+	protected void algorithmStart() {
+
+		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
+				+ " started on " + numThreads + " threads with parameters: " + "populationSize = " + populationSize
+				+ ", numChildren = " + numChildren + ", selection = " + selection.getClass().getSimpleName()
+				+ (replacement == null ? "" : ", replacement = " + replacement.getClass().getSimpleName())
+				+ (crossover == null ? ", without crossover" : "") + ", maxEffort = " + maxEffort);
+
+		generateInitialPopulation();
+
+		findAndSaveBestSolution();
+
+		if (numThreads > 1) {
+			// the chunks are relative to the end of the active population, wherever it is in the generation
+			jobs = new ChunkedJobs(numThreads, numChildren, 2,
+					(from, to) -> reproduction(populationSize + from, populationSize + to));
+		}
+	}
+
+	@Override
+	protected void algorithmStep() {
+
+		reproduction();
+
+		replacement();
+
+		findAndSaveBestSolution();
+
+		fireStateChanged(activePopulation);
+	}
+
+	@Override
+	protected void algorithmEnd() {
+
+		if (jobs != null)
+			jobs.shutdown();
+
+		fireFinalSolutionFound(currentBestSolution);
+
+		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
+				+ " ended.");
+	}
+
+	/**
+	 * Fills the {@link #activePopulation} with random individuals, and the
+	 * places of the children (after a population of the
+	 * {@link #maxPopulationSize}) with blank ones (see
+	 * {@link SolutionUtil#newSolution()}), which are overwritten by the
+	 * children before they are evaluated.
+	 */
+	private void generateInitialPopulation() {
+
+		int poolSize = Math.max(populationSize, maxPopulationSize) + numChildren;
+		pool = new ArrayList<T>(poolSize);
+		for (int i = 0; i < populationSize; i++) {
+			pool.add(solutionUtil.generateRandom());
+		}
+		while (pool.size() < poolSize) {
+			pool.add(solutionUtil.newSolution());
+		}
+		activePopulation = pool.subList(0, populationSize);
+
+		parents = new ArrayList<T>(Collections.nCopies(2 * poolSize, (T) null));
+		rejected = new boolean[numChildren];
+
+		currentBestSolution = solutionUtil.newSolution();
+		currentBestSolution.makeACloneOf(activePopulation.get(0));
+	}
+
+	/**
+	 * Makes all the children, on the algorithm thread or by running all the
+	 * {@link #jobs}, and then moves the accepted ones to the
+	 * beginning of the places of the children (see {@link #numAccepted}).
+	 */
+	protected void reproduction() {
+
+		if (jobs == null) {
+			reproduction(populationSize, populationSize + numChildren);
+		} else {
+			jobs.invokeAll();
+		}
+
+		numAccepted = 0;
+		for (int i = 0; i < numChildren; i++) {
+			if (!rejected[i]) {
+				Collections.swap(pool, populationSize + numAccepted, populationSize + i);
+				numAccepted++;
+			}
+		}
+	}
+
+	/**
+	 * Makes the children in the given (even sized) range of places in the
+	 * {@link #pool} (see {@link #makeChildren(int, int)}) and evaluates them
+	 * all, and then moves the acceptable ones (see
+	 * {@link #isAcceptable(Solution, Solution, Solution)}) to the beginning of
+	 * the range and makes more children in the places of the rejected ones,
+	 * until the range is full of accepted children or its share of the
+	 * {@link #maxEffort} is spent. The places left without an accepted child
+	 * are marked as {@link #rejected}.
+	 */
+	protected void reproduction(int from, int to) {
+
+		int effort = (int) ((long) maxEffort * (to - from) / numChildren);
+
+		// the places before it hold accepted children
+		int next = from;
+		int made = 0;
+
+		while (next < to && made < effort) {
+
+			int end = Math.min(to, next + effort - made);
+
+			makeChildren(next, end);
+			evaluate(next, end);
+			made += end - next;
+
+			for (int i = next; i < end; i++) {
+				if (isAcceptable(pool.get(i), parents.get(2 * i), parents.get(2 * i + 1))) {
+					Collections.swap(pool, next, i);
+					next++;
+				}
+			}
+		}
+
+		for (int i = from; i < to; i++) {
+			rejected[i - populationSize] = (i >= next);
+		}
+	}
+
+	/**
+	 * Makes the children (without evaluating them) in the given range of
+	 * places in the {@link #pool}: selects two parents, makes two children of
+	 * them in the places (the second one of the last pair in the
+	 * {@link #spareChild}, and dropped, if the range has an odd size) and
+	 * mutates them, or, without a crossover, copies a parent into every place
+	 * and mutates it.
+	 */
+	protected void makeChildren(int from, int to) {
+
+		if (crossover == null) {
+			for (int i = from; i < to; i++) {
+				T parent = selection.select(activePopulation);
+				T child = pool.get(i);
+				child.makeACloneOf(parent);
+				mutation.mutate(child);
+				setParents(i, parent, parent);
+			}
+			return;
+		}
+
+		for (int i = from; i < to; i += 2) {
+
+			T parent1 = selection.select(activePopulation);
+			T parent2 = selection.select(activePopulation);
+			T child1 = pool.get(i);
+			T child2 = (i + 1 < to) ? pool.get(i + 1) : spareChild.get();
+
+			crossover.crossover(parent1, parent2, child1, child2);
+
+			mutation.mutate(child1);
+			setParents(i, parent1, parent2);
+			if (i + 1 < to) {
+				mutation.mutate(child2);
+				setParents(i + 1, parent1, parent2);
+			}
+		}
+	}
+
+	private void setParents(int i, T parent1, T parent2) {
+		parents.set(2 * i, parent1);
+		parents.set(2 * i + 1, parent2);
+	}
+
+	/**
+	 * The offspring selection: whether the given (evaluated) child is good
+	 * enough to get into the next population, compared to its parents (the
+	 * same individual twice for a mutation-only GA). It is called from the
+	 * threads that make the children, so it has to be thread-safe. By default
+	 * every child is acceptable.
+	 */
+	protected boolean isAcceptable(T child, T parent1, T parent2) {
+		return true;
+	}
+
+	/**
+	 * Makes the next population out of the {@link #activePopulation} and the
+	 * {@link #numAccepted} accepted children after it with the
+	 * {@link Replacement} operator. It can be overridden to change the
+	 * {@link #populationSize} (up to the {@link #maxPopulationSize}, making
+	 * the {@link #activePopulation} view again).
+	 */
+	protected void replacement() {
+
+		if (populationSize + numAccepted == pool.size()) {
+			replacement.replace(pool, populationSize);
+		} else {
+			replacement.replace(pool.subList(0, populationSize + numAccepted), populationSize);
+		}
+	}
+
+	/**
+	 * Evaluates the individuals in the given range of places in the
+	 * {@link #pool}, one by one; it can be overridden to evaluate them all at
+	 * once (e.g. with a {@link erozic.optimisation.utils.BinaryUtil}).
+	 */
+	protected void evaluate(int from, int to) {
+
+		for (int i = from; i < to; i++) {
+			solutionUtil.evaluate(pool.get(i));
+		}
+	}
+}
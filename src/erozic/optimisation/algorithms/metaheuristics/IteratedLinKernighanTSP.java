@@ -0,0 +1,188 @@
+package erozic.optimisation.algorithms.metaheuristics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import erozic.optimisation.algorithms.OptimisationAlgorithm;
+import erozic.optimisation.algorithms.operators.LinKernighanTSP;
+import erozic.optimisation.solutions.TSPSolution;
+import erozic.optimisation.utils.TSPUtil;
+
+/**
+ * An implementation of the Iterated Lin-Kernighan algorithm applied to solving the TSP problem.
+ *
+ * Starting from the greedy path brought to a local optimum, every step perturbs the current
+ * solution with a random "double-bridge" move (which LK moves can't easily undo) and repairs it
+ * with the {@link LinKernighanTSP} operator starting from the towns around the perturbation.
+ * The result replaces the current solution if it is not worse.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class IteratedLinKernighanTSP extends OptimisationAlgorithm<TSPSolution> {
+
+	// --------------------------------------------------
+	// -- ALGORITHM PARAMETERS --------------------------
+	// --------------------------------------------------
+	/** The maximum number of 2-opt steps in a single LK move */
+	protected int maxDepth = 5;
+	/** The number of nearest neighbours considered for a new edge */
+	protected int neighbourListSize = 8;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	/** The solution that gets perturbed in every step */
+	protected TSPSolution current;
+	/** The perturbed and improved copy of the {@link #current} solution */
+	protected TSPSolution candidate;
+	/** Just the {@link #current} solution, for the listeners */
+	protected List<TSPSolution> state;
+
+	protected LinKernighanTSP localSearch;
+
+	/** The towns at the ends of the edges changed by the last kick */
+	private int[] kickTowns = new int[6];
+	/** A working copy of the path used for the kick */
+	private int[] kickPath;
+
+	protected TSPUtil tspUtil;
+	protected int numTowns;
+
+	/**
+	 * Sets all the algorithm parameters and prepares it to run.
+	 *
+	 * @param maxSteps {@link OptimisationAlgorithm#OptimisationAlgorithm(int)}
+	 */
+	public IteratedLinKernighanTSP(TSPUtil tspUtil, int maxDepth, int neighbourListSize, int maxSteps) {
+		super(maxSteps);
+		this.maxDepth = maxDepth;
+		this.neighbourListSize = neighbourListSize;
+
+		initialise(tspUtil);
+	}
+
+	/**
+	 * Sets the maximum number of steps to Integer.MAX_VALUE and everything else the same as in
+	 * {@link #IteratedLinKernighanTSP(TSPUtil, int, int, int)}.
+	 *
+	 * @see OptimisationAlgorithm#OptimisationAlgorithm()
+	 */
+	public IteratedLinKernighanTSP(TSPUtil tspUtil, int maxDepth, int neighbourListSize) {
+		this(tspUtil, maxDepth, neighbourListSize, Integer.MAX_VALUE);
+	}
+
+	private void initialise(TSPUtil tspUtil) {
+		this.tspUtil = tspUtil;
+		this.numTowns = tspUtil.getNumTowns();
+
+		localSearch = new LinKernighanTSP(tspUtil, maxDepth, neighbourListSize);
+
+		current = new TSPSolution(numTowns);
+		current.setPath(tspUtil.getGreedyPath());
+		current.setPathLength(tspUtil.getGreedyPathLength());
+
+		candidate = new TSPSolution(numTowns);
+		kickPath = new int[numTowns];
+
+		state = new ArrayList<TSPSolution>(1);
+		state.add(current);
+
+		currentBestSolution = new TSPSolution(numTowns);
+	}
+
+	/**
+	 * Does what it says + fires an update event
+	 */
+	private void checkIfBest(TSPSolution solution) {
+
+		if (currentBestSolution.compareTo(solution) > 0) {
+			currentBestSolution.makeACloneOf(solution);
+			fireCurrentBestSolutionUpdated(currentBestSolution);
+		}
+	}
+
+	@Override
+	protected void algorithmStart() {
+		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
+				+ " started with parameters: " + "maxDepth = " + maxDepth + ", neighbourListSize = "
+				+ neighbourListSize);
+
+		localSearch.improve(current);
+
+		checkIfBest(current);
+	}
+
+	@Override
+	protected void algorithmStep() {
+
+		candidate.makeACloneOf(current);
+
+		doubleBridgeKick(candidate);
+
+		localSearch.improve(candidate, kickTowns, kickTowns.length);
+
+		if (candidate.compareTo(current) <= 0) {
+			current.makeACloneOf(candidate);
+			checkIfBest(current);
+		}
+
+		fireStateChanged(state);
+	}
+
+	@Override
+	protected void algorithmEnd() {
+
+		fireFinalSolutionFound(currentBestSolution);
+
+		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
+				+ " ended.");
+	}
+
+	/**
+	 * Cuts the path of the given solution in four parts, A B C D, at random positions and
+	 * reconnects them as A C B D. The towns at the ends of the new edges are saved in
+	 * {@link #kickTowns}. The solution is NOT re-evaluated.
+	 */
+	protected void doubleBridgeKick(TSPSolution solution) {
+
+		Random random = ThreadLocalRandom.current();
+
+		int[] path = solution.getPath();
+
+		if (numTowns < 8) {
+			tspUtil.shuffleArray(path);
+			for (int i = 0; i < kickTowns.length; i++) {
+				kickTowns[i] = path[i % numTowns];
+			}
+			return;
+		}
+
+		// three distinct cut positions: 0 < first < second < third < numTowns
+		int first, second, third;
+		do {
+			first = 1 + random.nextInt(numTowns - 1);
+			second = 1 + random.nextInt(numTowns - 1);
+			third = 1 + random.nextInt(numTowns - 1);
+		} while (first == second || second == third || first == third);
+
+		if (first > second) { int temp = first; first = second; second = temp; }
+		if (second > third) { int temp = second; second = third; third = temp; }
+		if (first > second) { int temp = first; first = second; second = temp; }
+
+		kickTowns[0] = path[first - 1];
+		kickTowns[1] = path[first];
+		kickTowns[2] = path[second - 1];
+		kickTowns[3] = path[second];
+		kickTowns[4] = path[third - 1];
+		kickTowns[5] = path[third];
+
+		int index = first;
+		System.arraycopy(path, second, kickPath, index, third - second);
+		index += third - second;
+		System.arraycopy(path, first, kickPath, index, second - first);
+
+		System.arraycopy(kickPath, first, path, first, third - first);
+	}
+}
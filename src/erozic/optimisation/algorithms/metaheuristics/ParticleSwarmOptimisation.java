@@ -1,10 +1,13 @@
 package erozic.optimisation.algorithms.metaheuristics;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 import erozic.optimisation.algorithms.OptimisationAlgorithm;
+import erozic.optimisation.algorithms.operators.RingTopology;
+import erozic.optimisation.algorithms.operators.Topology;
 import erozic.optimisation.solutions.VectorParticle;
 import erozic.optimisation.solutions.VectorSolution;
 import erozic.optimisation.utils.VectorUtil;
@@ -13,12 +16,20 @@ import erozic.optimisation.utils.VectorUtil;
  * An implementation of the Particle Swarm Optimisation (PSO) algorithm for finding the extremum
  * of a function.
  * 
- * The neighbourhood is modeled as a list with cyclic boundary contitions, i.e. a ring, and
+ * The neighbourhood is by default modeled as a list with cyclic boundary contitions, i.e. a ring,
+ * but any {@link Topology} can be set (see {@link #setTopology(Topology)}), and the
  * velocities of particles are calculated with influences from the particle itself (its historically
  * best solution * c1 * U[0,1]), its neighbourhood (historically best solution in neighbourhood * c2 *
  * U[0,1]) and its "inertia" (w * current velocity) which changes (drops) with time (iterations), 
  * where U[0,1] means a uniformly random number from the [0,1] interval.
  * 
+ * The swarm is stored as a "structure of arrays": the positions, velocities,
+ * last and best positions of all the particles are each in a single array
+ * (particle after particle), and their fitnesses in arrays of their own, so
+ * the updates are tight loops over contiguous memory. The listeners get a view
+ * of the swarm as {@link VectorParticle}s, which are filled (in preallocated
+ * objects) only when accessed.
+ * 
  * @author Eugen Rožić
  *
  */
@@ -28,42 +39,58 @@ public class ParticleSwarmOptimisation extends OptimisationAlgorithm<VectorParti
 	// -- ALGORITHM PARAMETERS --------------------------
 	// --------------------------------------------------
 	/** The number of particles in the swarm */
-	private int swarmSize = 20;
-	/** How far (in indices) two particles can be to be neighbours */
-	private int neighbourhoodRadius = 5;
+	protected int swarmSize = 20;
+	/** How far (in indices) two particles can be to be neighbours (in the default {@link RingTopology}) */
+	protected int neighbourhoodRadius = 5;
 	/** How attractive is a particle's best historical value */
-	private double c1 = 2;
+	protected double c1 = 2;
 	/** How attractive is the local (neighbourhood) historical best */
-	private double c2 = 2;
+	protected double c2 = 2;
 	/**
 	 * How much inertia the particle has at the start (fraction of current
 	 * velocity)
 	 */
-	private double wStart = 0.9;
+	protected double wStart = 0.9;
 	/**
 	 * How much inertia the particle has at the end (fraction of current
 	 * velocity)
 	 */
-	private double wEnd = 0.4;
+	protected double wEnd = 0.4;
 	/** After how many iterations wEnd is reached */
-	private int wIterBound = 50;
+	protected int wIterBound = 50;
 	/**
 	 * The biggest possible change in the velocity as a fraction of the range of
 	 * possible values
 	 */
-	private double vMaxDiffFraction = 0.1;
+	protected double vMaxDiffFraction = 0.1;
 	// --------------------------------------------------
 	// --------------------------------------------------
 
 	/** The biggest possible change in the velocity */
-	private double vMaxDiff;
+	protected double vMaxDiff;
 
-	private ArrayList<VectorParticle> particles = null;
+	/** The current positions of the particles, {@link #dimensions} values per particle */
+	protected double[] positions = null;
+	protected double[] velocities = null;
+	/** The previous positions of the particles */
+	protected double[] lastPositions = null;
+	/** The best positions the particles have had */
+	protected double[] bestPositions = null;
+	
+	protected double[] fitnesses = null;
+	protected double[] lastFitnesses = null;
+	protected double[] bestFitnesses = null;
+	
+	/** Determines the neighbourhoods of the particles */
+	protected Topology topology = null;
+	/** The index of the best particle in the neighbourhood of every particle, found at the beginning of a step */
+	protected int[] localBests = null;
 	
-	private double[][] velocities = null;
+	/** A view of the swarm for the listeners */
+	private List<VectorParticle> particles = null;
 	
-	private VectorUtil vectorUtil = null;
-	private int dimensions;
+	protected VectorUtil vectorUtil = null;
+	protected int dimensions;
 
 	/**
 	 * Sets all the algorithm parameters and prepares it to run.
@@ -82,6 +109,7 @@ public class ParticleSwarmOptimisation extends OptimisationAlgorithm<VectorParti
 		this.wEnd = wEnd;
 		this.wIterBound = wIterBound;
 		this.vMaxDiffFraction = vMaxDiffFraction;
+		this.topology = new RingTopology(neighbourhoodSize);
 
 		initialise(vectorUtil);
 	}
@@ -106,34 +134,51 @@ public class ParticleSwarmOptimisation extends OptimisationAlgorithm<VectorParti
 		this.dimensions = vectorUtil.getDimensions();
 		this.vMaxDiff = ((vectorUtil.getMaxValue() - vectorUtil.getMinValue()) * vMaxDiffFraction);
 		
-		this.particles = new ArrayList<VectorParticle>(swarmSize);
-		this.velocities = new double[swarmSize][dimensions];
+		this.positions = new double[swarmSize * dimensions];
+		this.velocities = new double[swarmSize * dimensions];
+		this.lastPositions = new double[swarmSize * dimensions];
+		this.bestPositions = new double[swarmSize * dimensions];
+		this.fitnesses = new double[swarmSize];
+		this.lastFitnesses = new double[swarmSize];
+		this.bestFitnesses = new double[swarmSize];
+		this.localBests = new int[swarmSize];
 
 		for (int i = 0; i < swarmSize; i++) {
 			
-			particles.add(new VectorParticle(vectorUtil.generateRandom()));
+			VectorSolution solution = vectorUtil.generateRandom();
+			if (i == 0) {
+				currentBestSolution = new VectorParticle(solution);
+			}
+			
+			System.arraycopy(solution.getValues(), 0, positions, i * dimensions, dimensions);
+			System.arraycopy(solution.getValues(), 0, bestPositions, i * dimensions, dimensions);
+			fitnesses[i] = solution.getFitness();
+			bestFitnesses[i] = solution.getFitness();
+			lastFitnesses[i] = Double.NEGATIVE_INFINITY;
 			
 			for (int d = 0; d < dimensions; d++) {
-				velocities[i][d] = (2 * random.nextDouble() * vMaxDiff) - vMaxDiff;
+				velocities[i * dimensions + d] = (2 * random.nextDouble() * vMaxDiff) - vMaxDiff;
 			}
 		}
-		currentBestSolution = new VectorParticle(particles.get(0));
+		
+		this.particles = new SwarmView();
 	}
 
 	/**
 	 * Does what it says + fires an update event
 	 */
-	private void findAndSaveBestSolution() {
+	protected void findAndSaveBestSolution() {
 
-		VectorSolution bestInPopulation = particles.get(0).getBest();
-		for (VectorParticle particle : particles) {
-			if (particle.getBest().compareTo(bestInPopulation) < 0) {
-				bestInPopulation = particle.getBest();
+		int best = 0;
+		for (int i = 1; i < swarmSize; i++) {
+			if (bestFitnesses[i] > bestFitnesses[best]) {
+				best = i;
 			}
 		}
 
-		if (currentBestSolution.compareTo(bestInPopulation) > 0) {
-			currentBestSolution.makeACloneOf(bestInPopulation);
+		if (bestFitnesses[best] > currentBestSolution.getFitness()) {
+			System.arraycopy(bestPositions, best * dimensions, currentBestSolution.getValues(), 0, dimensions);
+			currentBestSolution.setFitness(bestFitnesses[best]);
 			fireCurrentBestSolutionUpdated(currentBestSolution);
 		}
 	}
@@ -144,7 +189,8 @@ public class ParticleSwarmOptimisation extends OptimisationAlgorithm<VectorParti
 		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
 				+ " started with parameters: " + "swarmSize = " + swarmSize + ", neighbourhoodSize = "
 				+ neighbourhoodRadius + ", c1 = " + c1 + ", c2 = " + c2 + ", wStart = " + wStart + ", wEnd = " + wEnd
-				+ ", wIterBound = " + wIterBound + ", wMaxDiffFactor = " + vMaxDiffFraction);
+				+ ", wIterBound = " + wIterBound + ", wMaxDiffFactor = " + vMaxDiffFraction + ", topology = "
+				+ topology.getClass().getSimpleName());
 
 		findAndSaveBestSolution();
 	}
@@ -152,9 +198,7 @@ public class ParticleSwarmOptimisation extends OptimisationAlgorithm<VectorParti
 	@Override
 	protected void algorithmStep() {
 
-		updatePositions();
-		
-		evaluateParticles();
+		moveSwarm();
 
 		findAndSaveBestSolution();
 		
@@ -171,69 +215,100 @@ public class ParticleSwarmOptimisation extends OptimisationAlgorithm<VectorParti
 	}
 
 	/**
-	 * Calculates new velocities and new positions (circular boundary
-	 * conditions).
+	 * Sets the topology of the swarm (the default is a {@link RingTopology}
+	 * with the radius given to the constructor). It has to be set before the
+	 * algorithm is started.
 	 */
-	private void updatePositions() {
-		
-		Random random = ThreadLocalRandom.current();
+	public void setTopology(Topology topology) {
+		this.topology = topology;
+	}
 
-		double w;
+	/**
+	 * Moves all the particles (see {@link #updatePositions()}) and then
+	 * evaluates them (see {@link #evaluateParticles()}).
+	 */
+	protected void moveSwarm() {
+		
+		updatePositions();
+		
+		evaluateParticles();
+	}
+	
+	/**
+	 * @return the inertia (w) for the current step
+	 */
+	protected double inertia() {
+		
 		// TODO pogledaj jel ovo dobro, kako ide stvarno algoritam
 		if (currentStep > wIterBound) {
-			w = wEnd;
+			return wEnd;
 		} else {
-			w = wStart + ((wEnd - wStart) * (currentStep - 1)) / wIterBound;
+			return wStart + ((wEnd - wStart) * (currentStep - 1)) / wIterBound;
 		}
+	}
 
-		for (int i = 0; i < swarmSize; i++) {
-
-			VectorParticle particle = particles.get(i);
-			particle.saveLast();
-			
-			VectorSolution localBest = findLocalBest(i);
+	/**
+	 * Calculates new velocities and new positions (circular boundary
+	 * conditions) of all the particles.
+	 */
+	private void updatePositions() {
+		
+		Random random = ThreadLocalRandom.current();
 
-			for (int d = 0; d < dimensions; d++) {
+		double w = inertia();
+		
+		topology.update(bestFitnesses, localBests);
 
-				velocities[i][d] = w * velocities[i][d]
-						+ c1 * random.nextDouble() * (particle.getBest().getValues()[d] - particle.getValues()[d])
-						+ c2 * random.nextDouble() * (localBest.getValues()[d] - particle.getValues()[d]);
-
-				if (velocities[i][d] < -vMaxDiff) {
-					velocities[i][d] = -vMaxDiff;
-				} else if (velocities[i][d] > vMaxDiff) {
-					velocities[i][d] = vMaxDiff;
-				}
-				
-				vectorUtil.addToValues(particle, velocities[i]);
-			}
+		for (int i = 0; i < swarmSize; i++) {
+			updateParticle(i, bestPositions, localBests[i] * dimensions, w, random);
 		}
 	}
 	
 	/**
-	 * Finds the best values in the neighbourhood (which is modeled as a ring)
+	 * Saves the last state of the particle with the given index and calculates
+	 * its new velocity and position, in a single pass over its values.
+	 * 
+	 * @param localBestPositions
+	 *            the array holding the best position in the neighbourhood
+	 * @param localBestOffset
+	 *            the index of that position in the array
 	 */
-	private VectorSolution findLocalBest(int particleIndex) {  
+	protected void updateParticle(int i, double[] localBestPositions, int localBestOffset, double w, Random random) {
+		
+		double minValue = vectorUtil.getMinValue();
+		double maxValue = vectorUtil.getMaxValue();
 
-		int start = particleIndex - neighbourhoodRadius;
-		if (start < 0) {
-			start += swarmSize;
-		}
+		int offset = i * dimensions;
 		
-		VectorSolution localBest = particles.get(start).getBest();
+		// save the last state
+		System.arraycopy(positions, offset, lastPositions, offset, dimensions);
+		lastFitnesses[i] = fitnesses[i];
 		
-		int currentIndex = start + 1;
-		for (int j = 1; j <= neighbourhoodRadius * 2; j++) {
+		// the offset of the local best, relative to the offset of the particle
+		int localBest = localBestOffset - offset;
 
-			if (currentIndex >= swarmSize) {
-				currentIndex -= swarmSize;
+		for (int d = offset; d < offset + dimensions; d++) {
+
+			double velocity = w * velocities[d]
+					+ c1 * random.nextDouble() * (bestPositions[d] - positions[d])
+					+ c2 * random.nextDouble() * (localBestPositions[localBest + d] - positions[d]);
+
+			if (velocity < -vMaxDiff) {
+				velocity = -vMaxDiff;
+			} else if (velocity > vMaxDiff) {
+				velocity = vMaxDiff;
 			}
-			if (particles.get(currentIndex).getBest().compareTo(localBest) < 0) {
-				localBest = particles.get(currentIndex).getBest();
+			velocities[d] = velocity;
+			
+			// the values outside of the domain are wrapped back inside, see VectorUtil.addToValues
+			double position = positions[d] + velocity;
+			if (position > maxValue) {
+				position -= (maxValue - minValue);
+			} else if (position < minValue) {
+				position += (maxValue - minValue);
 			}
-			currentIndex++;
+			positions[d] = position;
 		}
-		return localBest;
 	}
 	
 	/**
@@ -241,9 +316,96 @@ public class ParticleSwarmOptimisation extends OptimisationAlgorithm<VectorParti
 	 */
 	public void evaluateParticles() {
 
-		for (VectorParticle particle : particles) {
-			// evaluate calls setFitness, which is overriden to set the new best if necessary
-			vectorUtil.evaluate(particle);
+		evaluateParticles(0, swarmSize);
+	}
+	
+	/**
+	 * Sets the fitnesses of the particles with indices from "from" (inclusive)
+	 * to "to" (exclusive), all at once (see
+	 * {@link VectorUtil#evaluate(double[], double[], int, int)}), and updates
+	 * their historical bests.
+	 */
+	protected void evaluateParticles(int from, int to) {
+		
+		vectorUtil.evaluate(positions, fitnesses, from, to);
+		
+		for (int i = from; i < to; i++) {
+			if (fitnesses[i] > bestFitnesses[i]) {
+				saveBest(i);
+			}
+		}
+	}
+	
+	/**
+	 * Sets the fitness of the particle with the given index and updates its
+	 * historical best (see {@link #saveBest(int)}).
+	 * 
+	 * @param evaluated
+	 *            a scratch solution the position is copied into to be evaluated
+	 */
+	protected void evaluateParticle(int i, VectorSolution evaluated) {
+		
+		System.arraycopy(positions, i * dimensions, evaluated.getValues(), 0, dimensions);
+		fitnesses[i] = vectorUtil.evaluate(evaluated).getFitness();
+		
+		if (fitnesses[i] > bestFitnesses[i]) {
+			saveBest(i);
+		}
+	}
+	
+	/**
+	 * Makes the current position of the particle with the given index its
+	 * historical best.
+	 */
+	protected void saveBest(int i) {
+		
+		int offset = i * dimensions;
+		System.arraycopy(positions, offset, bestPositions, offset, dimensions);
+		bestFitnesses[i] = fitnesses[i];
+	}
+	
+	/**
+	 * Copies the current, last and best state of the particle with the given
+	 * index from the arrays of the swarm into the given particle.
+	 */
+	protected void copyParticle(int index, VectorParticle particle) {
+		
+		int offset = index * dimensions;
+		
+		System.arraycopy(bestPositions, offset, particle.getBest().getValues(), 0, dimensions);
+		particle.getBest().setFitness(bestFitnesses[index]);
+		System.arraycopy(lastPositions, offset, particle.getLast().getValues(), 0, dimensions);
+		particle.getLast().setFitness(lastFitnesses[index]);
+		// the best fitness is set first, so this doesn't change the best
+		System.arraycopy(positions, offset, particle.getValues(), 0, dimensions);
+		particle.setFitness(fitnesses[index]);
+	}
+	
+	/**
+	 * A view of the swarm as a list of {@link VectorParticle}s. A particle is
+	 * copied from the arrays of the swarm when it is accessed (see
+	 * {@link #copyParticle(int, VectorParticle)}), into an object that is
+	 * reused for that particle.
+	 */
+	private class SwarmView extends AbstractList<VectorParticle> {
+		
+		private VectorParticle[] views = new VectorParticle[swarmSize];
+
+		@Override
+		public VectorParticle get(int index) {
+			
+			if (views[index] == null) {
+				views[index] = new VectorParticle(new VectorSolution(dimensions));
+			}
+			VectorParticle view = views[index];
+			copyParticle(index, view);
+			
+			return view;
+		}
+
+		@Override
+		public int size() {
+			return swarmSize;
 		}
 	}
 
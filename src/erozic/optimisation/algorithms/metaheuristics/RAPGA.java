@@ -1,34 +1,43 @@
 package erozic.optimisation.algorithms.metaheuristics;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
 
 import erozic.optimisation.algorithms.OptimisationAlgorithm;
+import erozic.optimisation.algorithms.operators.BinaryCrossover;
+import erozic.optimisation.algorithms.operators.GeometricBitFlipMutation;
+import erozic.optimisation.algorithms.operators.RandomSelection;
 import erozic.optimisation.solutions.BinarySolution;
 import erozic.optimisation.utils.BinaryUtil;
+import erozic.optimisation.utils.LongHashSet;
 
 /**
  * A Relevant Alleles Preserving Genetic Algorithm implementation for finding a solution to
  * a problem defined in an implementation of the {@link BinaryUtil} using individuals
  * with a genotypic representation ({@link BinarySolution}.
- * 
+ *
+ * It is the {@link GeneticAlgorithm} with a random selection of the parents
+ * (see {@link RandomSelection}), a crossover that is randomly a single-point
+ * or a uniform one (see {@link BinaryCrossover#SINGLE_POINT_OR_UNIFORM}), a
+ * bit-flip mutation (see {@link GeometricBitFlipMutation}) and an offspring
+ * selection (see {@link #isAcceptable(BinarySolution, BinarySolution, BinarySolution)}):
+ * the selection pressure is all in how much better than its parents a child
+ * has to be (see {@link #compFactor}), and a child that is already in the
+ * population is rejected. The next population is the best individual of the
+ * current one and the children accepted within the {@link #maxEffort}, so its
+ * size changes from generation to generation (up to the
+ * {@link #maxPopulationSize}), and the algorithm stops when it drops below the
+ * {@link #minPopulationSize}.
+ *
  * @author Eugen Rožić
  *
  */
-public class RAPGA extends OptimisationAlgorithm<BinarySolution> {
+public class RAPGA extends GeneticAlgorithm<BinarySolution> {
 
 	// --------------------------------------------------
 	// -- ALGORITHM PARAMETERS --------------------------
 	// --------------------------------------------------
-	/** Maximum size of the population */
-	protected int maxPopulationSize;
 	/** Minimum size of the population */
 	protected int minPopulationSize = 2;
-	/** The maximum number of children to create for the next generation */
-	protected int maxEffort;
 	/** How much better than its parent a child has to be */
 	protected double compFactor = 0;
 	/** The probability of a single-bit mutation */
@@ -36,12 +45,15 @@ public class RAPGA extends OptimisationAlgorithm<BinarySolution> {
 	// --------------------------------------------------
 	// --------------------------------------------------
 
-	protected List<BinarySolution> activePopulation;
-	protected List<BinarySolution> nextGeneration;
-
 	/** Holds all necessary (input) information to handle the individuals */
 	protected BinaryUtil decoderUtil;
-	
+
+	/**
+	 * The hashes ({@link BinarySolution#getHash()}) of the individuals in the
+	 * {@link #activePopulation}, for the O(1) check if a child is already in it
+	 */
+	protected LongHashSet activeHashes;
+
 	/**
 	 * Calls the other constructor with maxSteps = Integer.MAX_Value
 	 */
@@ -52,7 +64,7 @@ public class RAPGA extends OptimisationAlgorithm<BinarySolution> {
 
 	/**
 	 * Sets all the algorithm parameters and class variables.
-	 * 
+	 *
 	 * @param decoderUtil
 	 *            {@link #decoderUtil}
 	 * @param maxPopulationSize
@@ -67,246 +79,130 @@ public class RAPGA extends OptimisationAlgorithm<BinarySolution> {
 	 *            {@link #mutationRate}
 	 * @param maxSteps
 	 *            see super
-	 * 
+	 *
 	 * @see OptimisationAlgorithm
 	 */
-	public RAPGA(BinaryUtil decoderUtil, int maxPopulationSize, int minPopulationSize, int maxEffort, double compFactor, 
+	public RAPGA(BinaryUtil decoderUtil, int maxPopulationSize, int minPopulationSize, int maxEffort, double compFactor,
 			double mutationRate, int maxSteps) {
-		super(maxSteps);
+		this(1, decoderUtil, maxPopulationSize, minPopulationSize, maxEffort, compFactor, mutationRate, maxSteps);
+	}
+
+	/**
+	 * Also sets the number of threads to make the children on.
+	 *
+	 * @see RAPGA#RAPGA(BinaryUtil, int, int, int, double, double, int)
+	 */
+	protected RAPGA(int numThreads, BinaryUtil decoderUtil, int maxPopulationSize, int minPopulationSize,
+			int maxEffort, double compFactor, double mutationRate, int maxSteps) {
+		// the initial population is half the maximum size, and all the others but the elite can be children
+		super(decoderUtil, new RandomSelection<BinarySolution>(), BinaryCrossover.SINGLE_POINT_OR_UNIFORM,
+				GeometricBitFlipMutation.perThread(mutationRate, decoderUtil.getNumBits()), null,
+				Math.max(maxPopulationSize / 2, 1), Math.max(maxPopulationSize - 1, 1), numThreads, maxSteps);
+
 		this.decoderUtil = decoderUtil;
 		this.maxPopulationSize = maxPopulationSize;
 		this.minPopulationSize = minPopulationSize;
-		this.maxEffort = maxEffort;
 		this.compFactor = compFactor;
 		this.mutationRate = mutationRate;
-		
-		activePopulation = new ArrayList<BinarySolution>(maxPopulationSize / 2);
-		currentBestSolution = new BinarySolution(decoderUtil.getNumBits());
-	}
-	
-	/**
-	 * Does what it says + fires an update event.
-	 * The {@link #activePopulation} is sorted when this method finishes.
-	 */
-	private void findAndSaveBestSolution() {
+		setMaxEffort(maxEffort);
 
-		Collections.sort(activePopulation);
-
-		if (currentBestSolution.compareTo(activePopulation.get(0)) > 0) {
-			currentBestSolution.makeACloneOf(activePopulation.get(0));
-			fireCurrentBestSolutionUpdated(currentBestSolution);
-		}
+		activeHashes = new LongHashSet(maxPopulationSize);
 	}
-	
+
 	@Override
 	protected void algorithmStart() {
-		
+
 		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
 				+ " started with parameters: " + " maxPopulationSize = " + maxPopulationSize + ", minPopulationSize = "
 				+ minPopulationSize + ", maxEffort = " + maxEffort + ", compFactor = " + compFactor + ", mutationRate = "
 				+ mutationRate);
 
-		generateInitialPopulation();
+		super.algorithmStart();
 
-		findAndSaveBestSolution();
+		indexActivePopulation();
 	}
-	
+
+	/**
+	 * Also stops the algorithm if the population got smaller than the
+	 * {@link #minPopulationSize}.
+	 */
 	@Override
 	protected void algorithmStep() {
-		
-		int effort = 0;
-
-		nextGeneration = new ArrayList<BinarySolution>(maxPopulationSize);
-
-		// this is the implementation of elitism
-		nextGeneration.add(activePopulation.get(0));
-
-		// generate the next generation of individuals
-		while ((nextGeneration.size() < maxPopulationSize) && (effort < maxEffort)) {
-
-			BinarySolution[] parents = selection();
-			
-			assert parents[0].getFitness() > parents[1].getFitness();
-
-			BinarySolution[] children = crossover(parents[0], parents[1]);
-
-			mutate(children[0]);
-			mutate(children[1]);
-			
-			decoderUtil.evaluate(children[0]);
-			decoderUtil.evaluate(children[1]);
-
-			// this is why the parents array has to be sorted
-			double minimumFitness = parents[1].getFitness()
-					+ (parents[0].getFitness() - parents[1].getFitness()) * compFactor;
-
-			for (BinarySolution child : children) {
-				if (child.getFitness() > minimumFitness && !activePopulation.contains(child)) {
-					
-					nextGeneration.add(child);
-				}
-			}
-			effort += 2;
-		}
-		activePopulation = nextGeneration;
 
-		adjustCompFactor();
+		super.algorithmStep();
 
-		findAndSaveBestSolution();
-		
-		fireStateChanged(activePopulation);
-		
-		if (activePopulation.size() < minPopulationSize) {
+		if (populationSize < minPopulationSize) {
 			this.stop();
 		}
 	}
-	
-	@Override
-	protected void algorithmEnd() {
-		
-		fireFinalSolutionFound(currentBestSolution);
-		
-		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
-				+ " ended.");
-	}
 
 	/**
-	 * Generates the initial (random) {@link #activePopulation} with their
-	 * fitnesses calculated. The size of the initial population is half the
-	 * {@link #maxPopulationSize}.
+	 * Evaluates the children all at once, see
+	 * {@link BinaryUtil#evaluate(java.util.List, int, int)}.
 	 */
-	private void generateInitialPopulation() {
+	@Override
+	protected void evaluate(int from, int to) {
 
-		for (int i = 0; i < maxPopulationSize / 2; i++) {
-			activePopulation.add(decoderUtil.generateRandom());
-		}
+		decoderUtil.evaluate(pool, from, to);
 	}
 
 	/**
-	 * An implementation of the simplest possible selection of two parents -
-	 * they are just completely randomly selected from the
-	 * {@link #activePopulation}, there is no aditional selection pressure
-	 * implemented.<br>
-	 * <br>
-	 * The reason for this is because evolutionary pressure is implemented with
-	 * the {@link #compFactor} determining how much better a child has to be in
-	 * relation to its parents. But this does not prohibit implementing
-	 * additional selection pressure if one wishes...
-	 * 
-	 * @return A pair of individuals ordered by their fitness in descending
-	 *         order
+	 * @return true if the given child has a fitness larger than the worse
+	 *         parent's by the {@link #compFactor} of the difference between the
+	 *         parents, and is not already in the {@link #activePopulation}
 	 */
-	protected BinarySolution[] selection() {
-		
-		Random random = ThreadLocalRandom.current();
-
-		BinarySolution parent1 = activePopulation.get(random.nextInt(activePopulation.size()));
-		BinarySolution parent2 = activePopulation.get(random.nextInt(activePopulation.size()));
+	@Override
+	protected boolean isAcceptable(BinarySolution child, BinarySolution parent1, BinarySolution parent2) {
 
-		if (parent2.getFitness() > parent1.getFitness()) {
-			BinarySolution temp = parent2;
-			parent2 = parent1;
-			parent1 = temp;
-		}
+		double better = Math.max(parent1.getFitness(), parent2.getFitness());
+		double worse = Math.min(parent1.getFitness(), parent2.getFitness());
+		double minimumFitness = worse + (better - worse) * compFactor;
 
-		return new BinarySolution[] { parent1, parent2 };
-	}
-
-	/**
-	 * A crossover that chooses randomly between two different standard
-	 * implementations of the crossover operator: a
-	 * {@link #singlePointCrossover(BinarySolution, BinarySolution)} and a
-	 * {@link #uniformCrossover(BinarySolution, BinarySolution)}.
-	 */
-	protected BinarySolution[] crossover(BinarySolution parent1, BinarySolution parent2) {
-		
-		Random random = ThreadLocalRandom.current();
-
-		boolean coinFlip = random.nextBoolean();
-		if (coinFlip)
-			return singlePointCrossover(parent1, parent2);
-		else
-			return uniformCrossover(parent1, parent2);
+		return child.getFitness() > minimumFitness && !activeHashes.contains(child.getHash());
 	}
 
 	/**
-	 * A basic, single-point crossover operator implementation.
-	 * 
-	 * @return A couple of children individuals
+	 * The next population is the best individual of the current one (this is
+	 * the implementation of elitism) followed by all the accepted children
+	 * (but not more than the {@link #maxPopulationSize}).
 	 */
-	protected BinarySolution[] singlePointCrossover(BinarySolution parent1, BinarySolution parent2) {
-		
-		Random random = ThreadLocalRandom.current();
-
-		BinarySolution[] children = new BinarySolution[2];
-
-		byte[] child1 = new byte[decoderUtil.getNumBits()];
-		byte[] child2 = new byte[decoderUtil.getNumBits()];
+	@Override
+	protected void replacement() {
 
-		int crossoverPoint = random.nextInt(decoderUtil.getNumBits() - 1) + 1;
-		for (int i = 0; i < crossoverPoint; i++) {
-			child1[i] = parent1.getGenotype()[i];
-			child2[i] = parent2.getGenotype()[i];
-		}
-		for (int i = crossoverPoint; i < decoderUtil.getNumBits(); i++) {
-			child1[i] = parent2.getGenotype()[i];
-			child2[i] = parent1.getGenotype()[i];
+		int best = 0;
+		for (int i = 1; i < populationSize; i++) {
+			if (pool.get(i).compareTo(pool.get(best)) < 0) {
+				best = i;
+			}
 		}
+		Collections.swap(pool, 0, best);
 
-		children[0] = new BinarySolution(child1);
-		children[1] = new BinarySolution(child2);
-
-		return children;
-	}
-
-	/**
-	 * A uniform crossover operator implementation, takes each byte from a
-	 * randomly chosen parent.
-	 */
-	protected BinarySolution[] uniformCrossover(BinarySolution parent1, BinarySolution parent2) {
-		
-		Random random = ThreadLocalRandom.current();
-
-		BinarySolution[] children = new BinarySolution[2];
-
-		byte[] child1 = new byte[decoderUtil.getNumBits()];
-		byte[] child2 = new byte[decoderUtil.getNumBits()];
-
-		for (int i = 0; i < decoderUtil.getNumBits(); i++) {
-			boolean coinFlip = random.nextBoolean();
-			if (coinFlip) {
-				child1[i] = parent1.getGenotype()[i];
-				child2[i] = parent2.getGenotype()[i];
-			} else {
-				child1[i] = parent2.getGenotype()[i];
-				child2[i] = parent1.getGenotype()[i];
-			}
+		int nextPopulationSize = Math.min(1 + numAccepted, maxPopulationSize);
+		// the children are rotated into the places after the elite
+		for (int i = 1; i < nextPopulationSize; i++) {
+			Collections.swap(pool, i, populationSize + i - 1);
 		}
 
-		children[0] = new BinarySolution(child1);
-		children[1] = new BinarySolution(child2);
+		populationSize = nextPopulationSize;
+		activePopulation = pool.subList(0, populationSize);
+
+		indexActivePopulation();
 
-		return children;
+		adjustCompFactor();
 	}
 
 	/**
-	 * A basic mutation operator implementation - just flips each bit of the
-	 * given individual's genotype with {@link #mutationRate} probability.
-	 * 
-	 * TODO A problem is a lot of calls to the random generator...
-	 * 
-	 * @return a reference to the passed individual, just for convenience
+	 * Fills the {@link #activeHashes} with the hashes of the current
+	 * {@link #activePopulation}. Two different genotypes having the same 64-bit
+	 * hash is improbable enough (about populationSize / 2^64 per check) that a
+	 * child with the hash of an active individual is considered its duplicate.
 	 */
-	protected BinarySolution mutate(BinarySolution individual) {
-		
-		Random random = ThreadLocalRandom.current();
+	private void indexActivePopulation() {
 
-		for (int i = 0; i < decoderUtil.getNumBits(); i++) {
-			if (random.nextDouble() < mutationRate) {
-				individual.getGenotype()[i] ^= (byte) 1;
-			}
+		activeHashes.clear();
+		for (BinarySolution individual : activePopulation) {
+			activeHashes.add(individual.getHash());
 		}
-		return individual;
 	}
 
 	/**
@@ -320,7 +216,7 @@ public class RAPGA extends OptimisationAlgorithm<BinarySolution> {
 		if (compFactor > 1)
 			compFactor = 1;
 	}
-	
+
 	public double getCompFactor() {
 		return compFactor;
 	}
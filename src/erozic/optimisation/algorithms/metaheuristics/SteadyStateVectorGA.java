@@ -3,7 +3,6 @@ package erozic.optimisation.algorithms.metaheuristics;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.TreeSet;
 import java.util.concurrent.ThreadLocalRandom;
 
 import erozic.optimisation.algorithms.OptimisationAlgorithm;
@@ -15,6 +14,11 @@ import erozic.optimisation.utils.VectorUtil;
  * A steady state genetic algorithm implementation for finding the minimum of a
  * function using individuals with a phenotypic representation (double[]).
  * 
+ * The individuals are chosen by their indices in the {@link #population}, and
+ * compared by a copy of their fitnesses in an array ({@link #fitnesses}); the
+ * child of a step is made in place of the individual it replaces, so a step
+ * makes no garbage.
+ * 
  * @author Eugen Rožić
  *
  */
@@ -33,7 +37,18 @@ public class SteadyStateVectorGA extends OptimisationAlgorithm<VectorSolution> {
 	// --------------------------------------------------
 	// --------------------------------------------------
 
+	/** After how many steps the listeners are notified of the state (the population) */
+	protected int stateChangedInterval = 1;
+
 	protected List<VectorSolution> population;
+	/** The fitnesses of the individuals in the {@link #population}, index by index */
+	protected double[] fitnesses;
+	
+	/**
+	 * The indices of the individuals chosen by the {@link #selection(int[])},
+	 * from the best to the worst
+	 */
+	protected int[] selected = new int[3];
 	
 	protected VectorUtil vectorUtil;
 	
@@ -57,12 +72,17 @@ public class SteadyStateVectorGA extends OptimisationAlgorithm<VectorSolution> {
 	 */
 	public SteadyStateVectorGA(VectorUtil vectorUtil, int populationSize, double mutationIntensity, int maxSteps) {
 		super(maxSteps);
+		
+		if (populationSize < 3)
+			throw new IllegalArgumentException("The population has to have at least 3 individuals, not "
+					+ populationSize + "!");
 
 		this.vectorUtil = vectorUtil;
 		this.populationSize = populationSize;
 		this.mutationIntensity = mutationIntensity;
 		
 		population = new ArrayList<VectorSolution>(populationSize);
+		fitnesses = new double[populationSize];
 		currentBestSolution = new VectorSolution(vectorUtil.getDimensions());
 	}
 	
@@ -89,6 +109,16 @@ public class SteadyStateVectorGA extends OptimisationAlgorithm<VectorSolution> {
 		}
 	}
 	
+	/**
+	 * Sets after how many steps the listeners are notified of the state (the
+	 * population), 1 (every step) by default.
+	 */
+	public void setStateChangedInterval(int stateChangedInterval) {
+		if (stateChangedInterval < 1)
+			throw new IllegalArgumentException("The interval has to be positive, not " + stateChangedInterval + "!");
+		this.stateChangedInterval = stateChangedInterval;
+	}
+	
 	@Override
 	protected void algorithmStart() {
 		
@@ -104,17 +134,21 @@ public class SteadyStateVectorGA extends OptimisationAlgorithm<VectorSolution> {
 	@Override
 	protected void algorithmStep() {
 		
-		TreeSet<VectorSolution> potentialParents = selection();
+		selection(selected);
 
-		VectorSolution child = crossover(potentialParents.pollFirst(), potentialParents.pollFirst());
+		// the worst one is replaced by the child
+		VectorSolution child = population.get(selected[2]);
+		
+		crossover(population.get(selected[0]), population.get(selected[1]), child);
 
 		mutatation(child);
 
-		population.remove(potentialParents.pollFirst());
-		population.add(vectorUtil.evaluate(child));
+		fitnesses[selected[2]] = vectorUtil.evaluate(child).getFitness();
 		checkIfBest(child);
 		
-		fireStateChanged(population);
+		if (currentStep % stateChangedInterval == 0) {
+			fireStateChanged(population);
+		}
 	}
 	
 	@Override
@@ -134,46 +168,68 @@ public class SteadyStateVectorGA extends OptimisationAlgorithm<VectorSolution> {
 
 		for (int i = 0; i < populationSize; i++) {
 			population.add(vectorUtil.generateRandom());
+			fitnesses[i] = population.get(i).getFitness();
 		}
 	}
 
 	/**
 	 * A modified 3-tournament selection operator - picks 3 different
-	 * individuals at random and sorts them (a TreeSet is automatically sorted).
-	 * <br>
-	 * The first two should be used as parents and the third one removed from
-	 * the population to make room for a child of the better two parents. <br>
+	 * individuals at random and puts their indices into the given array,
+	 * sorted by their {@link #fitnesses}. <br>
+	 * The first two should be used as parents and the third one replaced by a
+	 * child of the better two parents. <br>
 	 * This implements selection pressure because better individuals will have a
 	 * larger chance of reproducing.
 	 */
-	protected TreeSet<VectorSolution> selection() {
+	protected void selection(int[] selected) {
 		
 		Random random = ThreadLocalRandom.current();
+		
+		int n = populationSize;
 
-		TreeSet<VectorSolution> parents = new TreeSet<VectorSolution>();
+		// three different indices, the later ones skipping over the earlier ones
+		int a = random.nextInt(n);
+		int b = random.nextInt(n - 1);
+		if (b >= a) {
+			b++;
+		}
+		int c = random.nextInt(n - 2);
+		if (c >= Math.min(a, b)) {
+			c++;
+		}
+		if (c >= Math.max(a, b)) {
+			c++;
+		}
 
-		while (parents.size() < 3) {
-			parents.add(population.get(random.nextInt(population.size())));
+		// sorted from the best to the worst
+		if (fitnesses[b] > fitnesses[a]) {
+			int t = a; a = b; b = t;
+		}
+		if (fitnesses[c] > fitnesses[b]) {
+			int t = b; b = c; c = t;
+			if (fitnesses[b] > fitnesses[a]) {
+				t = a; a = b; b = t;
+			}
 		}
-		return parents;
+		selected[0] = a;
+		selected[1] = b;
+		selected[2] = c;
 	}
 
 	/**
-	 * A simple numerical crossover operator implementation. It creates one
-	 * child using for its values the arithmetic mean of the corresponding
-	 * parent values.
-	 * 
-	 * @return a child
+	 * A simple numerical crossover operator implementation. It makes a child
+	 * (in the given individual) using for its values the arithmetic mean of the
+	 * corresponding parent values.
 	 */
-	protected VectorSolution crossover(VectorSolution parent1, VectorSolution parent2) {
+	protected void crossover(VectorSolution parent1, VectorSolution parent2, VectorSolution child) {
 		
-		VectorSolution child = new VectorSolution(vectorUtil.getDimensions());
+		double[] values1 = parent1.getValues();
+		double[] values2 = parent2.getValues();
+		double[] childValues = child.getValues();
 
-		for (int i = 0; i < vectorUtil.getDimensions(); i++) {
-			child.getValues()[i] = (parent1.getValues()[i] + parent2.getValues()[i]) / 2;
+		for (int i = 0; i < childValues.length; i++) {
+			childValues[i] = (values1[i] + values2[i]) / 2;
 		}
-
-		return child;
 	}
 
 	/**
@@ -0,0 +1,41 @@
+package erozic.optimisation.algorithms.metaheuristics.concurrent;
+
+import erozic.optimisation.algorithms.metaheuristics.GenerationEliteBinaryGA;
+import erozic.optimisation.algorithms.metaheuristics.GeneticAlgorithm;
+import erozic.optimisation.utils.BinaryUtil;
+
+/**
+ * A {@link GenerationEliteBinaryGA} that makes and evaluates the children of a
+ * generation on multiple threads.
+ *
+ * The places for the children in the {@link #pool} are split into disjoint
+ * chunks (a few per thread, so the threads that finish early can take more)
+ * which are given to a {@link java.util.concurrent.ForkJoinPool} (see
+ * {@link GeneticAlgorithm}). The parents are only read during the
+ * reproduction and every child is written by exactly one thread, so no
+ * locking is needed; every thread mutates with its own
+ * {@link erozic.optimisation.algorithms.operators.GeometricBitFlipMutation}.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class GenerationEliteBinaryGAConcurrent extends GenerationEliteBinaryGA {
+
+	/**
+	 * Calls the other constructor with maxSteps = Integer.MAX_Value.
+	 */
+	public GenerationEliteBinaryGAConcurrent(int numThreads, BinaryUtil decoderUtil, int populationSize,
+			double procreationFactor, double mutationRate) {
+		this(numThreads, decoderUtil, populationSize, procreationFactor, mutationRate, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Sets the number of threads.
+	 *
+	 * @see GenerationEliteBinaryGA
+	 */
+	public GenerationEliteBinaryGAConcurrent(int numThreads, BinaryUtil decoderUtil, int populationSize,
+			double procreationFactor, double mutationRate, int maxSteps) {
+		super(numThreads, decoderUtil, populationSize, procreationFactor, mutationRate, maxSteps);
+	}
+}
@@ -0,0 +1,394 @@
+package erozic.optimisation.algorithms.metaheuristics.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import erozic.optimisation.algorithms.ChunkedJobs;
+import erozic.optimisation.algorithms.metaheuristics.ParticleSwarmOptimisation;
+import erozic.optimisation.solutions.VectorParticle;
+import erozic.optimisation.solutions.VectorSolution;
+import erozic.optimisation.utils.VectorUtil;
+
+/**
+ * A {@link ParticleSwarmOptimisation} that moves and evaluates the particles
+ * on multiple threads, every thread using its own random number generator. It
+ * has two modes:
+ *
+ * In the synchronous mode the historical bests of the particles are copied
+ * (a snapshot) and the best one in every neighbourhood is found before the
+ * particles are moved, so every particle moves towards the same bests as in
+ * the sequential algorithm. The particles are then split into disjoint chunks
+ * (a few per thread) which are run on a thread pool (see
+ * {@link ChunkedJobs}), and the particles of a chunk are updated and then
+ * evaluated all at once. A step ends when all the chunks are done.
+ *
+ * In the asynchronous mode there is no barrier at all: a number of workers
+ * each keep on taking the particle that has waited the longest (from a queue
+ * of the particles no worker is moving), moving it towards the best in its
+ * neighbourhood as it is at that moment and evaluating it, so an improvement
+ * is seen by the neighbours right away and a particle that is expensive to
+ * evaluate holds up only its own worker. The algorithm thread is the master:
+ * every step it takes the moves of {@link #swarmSize} particles from the
+ * workers (so every particle moves about once a step and the inertia changes
+ * as in the sequential algorithm), checks whether there is a new best
+ * solution and notifies the listeners. This mode is meant for functions that
+ * are expensive to evaluate.
+ *
+ * Every particle has its own lock (asynchronous mode), which a worker holds
+ * only to move the particle or to save its fitness (and historical best),
+ * never during an evaluation, and which is held to copy its historical best
+ * for a neighbour. A historical best that is the best one so far is also
+ * copied (under the lock of the particle) to the {@link #swarmBest}, which the
+ * master takes the best solution from, and the listeners get a copy of the
+ * swarm, made under the locks. The workers tell the master about their moves
+ * through a bounded queue, so they wait if the master lags behind (e.g. when
+ * paused). A dynamic topology is changed at the beginning of every step,
+ * while the workers wait to read it.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class ParticleSwarmOptimisationConcurrent extends ParticleSwarmOptimisation {
+
+	/** How long (in milliseconds) a thread waits on a queue before it checks whether it should stop */
+	private static final long POLL_MILLIS = 10;
+
+	private int numThreads;
+	/** Whether the particles are moved in the asynchronous mode */
+	private boolean asynchronous;
+
+	/** The chunks of the particles moved on multiple threads (synchronous mode) */
+	private ChunkedJobs jobs;
+
+	/** The pool the workers run in (asynchronous mode) */
+	private ForkJoinPool threadPool;
+
+	/** The inertia of the current step */
+	private volatile double w;
+
+	/** The copy of the {@link #bestPositions} at the beginning of a step (synchronous mode) */
+	private double[] bestPositionsSnapshot;
+
+	/** Whether the workers should keep on moving particles (asynchronous mode) */
+	private volatile boolean running;
+	/** What broke one of the workers, if anything (asynchronous mode) */
+	private volatile Throwable failure;
+	/** The lock of every particle (asynchronous mode) */
+	private Object[] locks;
+	/** The particles no worker is moving, the one that has waited the longest first (asynchronous mode) */
+	private BlockingQueue<Integer> waiting;
+	/** The particles the workers moved, that the master hasn't taken yet (asynchronous mode) */
+	private BlockingQueue<Integer> moved;
+	/** Guards the {@link #topology}, which the workers read while the master can change it (asynchronous mode) */
+	private ReadWriteLock topologyLock;
+	/** The best historical best of the particles, guarded by itself (asynchronous mode) */
+	private VectorSolution swarmBest;
+	/** The copy of the swarm the listeners get (asynchronous mode) */
+	private List<VectorParticle> swarmCopy;
+
+	/**
+	 * Calls the other constructor with maxSteps = Integer.MAX_Value.
+	 */
+	public ParticleSwarmOptimisationConcurrent(int numThreads, boolean asynchronous, VectorUtil vectorUtil,
+			int swarmSize, int neighbourhoodSize, double c1, double c2, double wStart, double wEnd, int wIterBound,
+			double vMaxDiffFraction) {
+		this(numThreads, asynchronous, vectorUtil, swarmSize, neighbourhoodSize, c1, c2, wStart, wEnd, wIterBound,
+				vMaxDiffFraction, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Sets the number of threads and the mode.
+	 *
+	 * @param asynchronous
+	 *            {@link #asynchronous}
+	 *
+	 * @see ParticleSwarmOptimisation
+	 */
+	public ParticleSwarmOptimisationConcurrent(int numThreads, boolean asynchronous, VectorUtil vectorUtil,
+			int swarmSize, int neighbourhoodSize, double c1, double c2, double wStart, double wEnd, int wIterBound,
+			double vMaxDiffFraction, int maxSteps) {
+		super(vectorUtil, swarmSize, neighbourhoodSize, c1, c2, wStart, wEnd, wIterBound, vMaxDiffFraction, maxSteps);
+		this.numThreads = numThreads;
+		this.asynchronous = asynchronous;
+
+		if (asynchronous) {
+			locks = new Object[swarmSize];
+			for (int i = 0; i < swarmSize; i++) {
+				locks[i] = new Object();
+			}
+			waiting = new ArrayBlockingQueue<Integer>(swarmSize);
+			moved = new ArrayBlockingQueue<Integer>(numThreads);
+			topologyLock = new ReentrantReadWriteLock();
+			swarmBest = new VectorSolution(dimensions);
+			swarmCopy = new ArrayList<VectorParticle>(swarmSize);
+			for (int i = 0; i < swarmSize; i++) {
+				swarmCopy.add(new VectorParticle(new VectorSolution(dimensions)));
+			}
+		} else {
+			bestPositionsSnapshot = new double[swarmSize * dimensions];
+		}
+	}
+
+	@Override
+	protected void algorithmStart() {
+
+		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
+				+ " running on " + numThreads + " threads" + (asynchronous ? " (asynchronous)." : "."));
+
+		super.algorithmStart();
+
+		if (asynchronous) {
+			threadPool = new ForkJoinPool(numThreads);
+		} else {
+			jobs = new ChunkedJobs(numThreads, swarmSize, this::moveParticles);
+		}
+	}
+
+	/**
+	 * Starts the workers of the asynchronous mode, with all the particles
+	 * waiting to be moved.
+	 */
+	private void startWorkers() {
+
+		swarmBest.makeACloneOf(currentBestSolution);
+		waiting.clear();
+		for (int i = 0; i < swarmSize; i++) {
+			waiting.add(i);
+		}
+		moved.clear();
+		failure = null;
+
+		running = true;
+		for (int i = 0; i < numThreads; i++) {
+			threadPool.submit(() -> {
+				// this is the job that is done
+				try {
+					moveParticlesWhileRunning();
+				} catch (Throwable e) {
+					failure = e;
+				}
+			});
+		}
+	}
+
+	/**
+	 * In the asynchronous mode sets the inertia and changes the topology for
+	 * the step (starting the workers in the first one), takes the moves of
+	 * {@link #swarmSize} particles, checks if there is a new best solution and
+	 * notifies the listeners.
+	 */
+	@Override
+	protected void algorithmStep() {
+
+		if (!asynchronous) {
+			super.algorithmStep();
+			return;
+		}
+
+		w = inertia();
+
+		topologyLock.writeLock().lock();
+		try {
+			topology.update(bestFitnesses, localBests);
+		} finally {
+			topologyLock.writeLock().unlock();
+		}
+
+		if (!running) {
+			startWorkers();
+		}
+
+		try {
+			for (int i = 0; i < swarmSize; i++) {
+				takeMoved();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			stop();
+			return;
+		}
+
+		findAndSaveBestSolution();
+
+		copySwarm();
+		fireStateChanged(swarmCopy);
+	}
+
+	/**
+	 * Moves and evaluates all the particles by running all the {@link #jobs},
+	 * and returns when they are all done (synchronous mode).
+	 */
+	@Override
+	protected void moveSwarm() {
+
+		w = inertia();
+
+		topology.update(bestFitnesses, localBests);
+
+		System.arraycopy(bestPositions, 0, bestPositionsSnapshot, 0, bestPositions.length);
+
+		jobs.invokeAll();
+	}
+
+	/**
+	 * While the workers are running takes the best solution from the
+	 * {@link #swarmBest}, otherwise finds it in the swarm.
+	 */
+	@Override
+	protected void findAndSaveBestSolution() {
+
+		if (!running) {
+			super.findAndSaveBestSolution();
+			return;
+		}
+
+		boolean improved = false;
+		synchronized (swarmBest) {
+			if (swarmBest.getFitness() > currentBestSolution.getFitness()) {
+				System.arraycopy(swarmBest.getValues(), 0, currentBestSolution.getValues(), 0, dimensions);
+				currentBestSolution.setFitness(swarmBest.getFitness());
+				improved = true;
+			}
+		}
+		if (improved) {
+			fireCurrentBestSolutionUpdated(currentBestSolution);
+		}
+	}
+
+	/**
+	 * Stops the workers (asynchronous mode), so the best solution is found
+	 * with the moves they made after the last step.
+	 */
+	@Override
+	protected void algorithmEnd() {
+
+		running = false;
+		if (jobs != null) {
+			jobs.shutdown();
+		}
+		if (asynchronous) {
+			threadPool.shutdown();
+			try {
+				threadPool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			moved.clear();
+			findAndSaveBestSolution();
+		}
+
+		super.algorithmEnd();
+	}
+
+	/**
+	 * Waits for a worker to move a particle.
+	 */
+	private void takeMoved() throws InterruptedException {
+
+		while (moved.poll(POLL_MILLIS, TimeUnit.MILLISECONDS) == null) {
+			if (failure != null)
+				throw new IllegalStateException("Something broke in one of the jobs:\n" + failure.getMessage(), failure);
+		}
+	}
+
+	/**
+	 * Moves the particles in the given range towards the bests in the
+	 * {@link #bestPositionsSnapshot} and evaluates them (all at once).
+	 */
+	private void moveParticles(int from, int to) {
+
+		for (int i = from; i < to; i++) {
+			updateParticle(i, bestPositionsSnapshot, localBests[i] * dimensions, w, ThreadLocalRandom.current());
+		}
+		evaluateParticles(from, to);
+	}
+
+	/**
+	 * Moves the particles that have waited the longest, one by one, until the
+	 * {@link #running} is set to false.
+	 */
+	private void moveParticlesWhileRunning() throws InterruptedException {
+
+		double[] localBest = new double[dimensions];
+		VectorSolution evaluated = new VectorSolution(dimensions);
+		Random random = ThreadLocalRandom.current();
+
+		while (running) {
+
+			Integer i = waiting.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+			if (i == null)
+				continue;
+
+			moveParticle(i, localBest, evaluated, random);
+
+			// there is always room for it, every particle is either waiting or being moved
+			waiting.add(i);
+
+			while (!moved.offer(i, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				if (!running)
+					return;
+			}
+		}
+	}
+
+	/**
+	 * Moves the particle with the given index towards the current best in its
+	 * neighbourhood and evaluates it, holding its lock only while it is moved
+	 * and while its fitness (and historical best) is saved.
+	 *
+	 * @param localBest
+	 *            a scratch array the best position in the neighbourhood is
+	 *            copied into
+	 * @param evaluated
+	 *            a scratch solution the position is copied into to be evaluated
+	 */
+	private void moveParticle(int i, double[] localBest, VectorSolution evaluated, Random random) {
+
+		topologyLock.readLock().lock();
+		try {
+			// the neighbourhood best might be found on a slightly stale fitness, but it is copied consistently
+			int best = topology.findLocalBest(bestFitnesses, i);
+			synchronized (locks[best]) {
+				System.arraycopy(bestPositions, best * dimensions, localBest, 0, dimensions);
+			}
+		} finally {
+			topologyLock.readLock().unlock();
+		}
+
+		synchronized (locks[i]) {
+			updateParticle(i, localBest, 0, w, random);
+			System.arraycopy(positions, i * dimensions, evaluated.getValues(), 0, dimensions);
+		}
+
+		double fitness = vectorUtil.evaluate(evaluated).getFitness();
+
+		synchronized (locks[i]) {
+			fitnesses[i] = fitness;
+			if (fitness > bestFitnesses[i]) {
+				saveBest(i);
+				synchronized (swarmBest) {
+					if (fitness > swarmBest.getFitness()) {
+						swarmBest.makeACloneOf(evaluated);
+					}
+				}
+			}
+		}
+	}
+
+	private void copySwarm() {
+
+		for (int i = 0; i < swarmSize; i++) {
+			synchronized (locks[i]) {
+				copyParticle(i, swarmCopy.get(i));
+			}
+		}
+	}
+}
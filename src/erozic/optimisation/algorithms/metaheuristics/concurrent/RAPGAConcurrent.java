@@ -0,0 +1,46 @@
+package erozic.optimisation.algorithms.metaheuristics.concurrent;
+
+import erozic.optimisation.algorithms.metaheuristics.GeneticAlgorithm;
+import erozic.optimisation.algorithms.metaheuristics.RAPGA;
+import erozic.optimisation.utils.BinaryUtil;
+
+/**
+ * A {@link RAPGA} that makes, evaluates and checks the children of a
+ * generation on multiple threads.
+ *
+ * The places for the children in the {@link #pool} are split into disjoint
+ * chunks (a few per thread, so the threads that finish early can take more)
+ * which are given to a {@link java.util.concurrent.ForkJoinPool} (see
+ * {@link GeneticAlgorithm}). Every chunk makes children in its own places
+ * until they are all accepted or its share of the {@link #maxEffort} is spent,
+ * so no counters have to be shared between the threads. The
+ * {@link #activeHashes} are only read during the reproduction, so the check
+ * for duplicates is the same as in the sequential algorithm; every thread
+ * mutates with its own
+ * {@link erozic.optimisation.algorithms.operators.GeometricBitFlipMutation}.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class RAPGAConcurrent extends RAPGA {
+
+	/**
+	 * Calls the other constructor with maxSteps = Integer.MAX_Value.
+	 */
+	public RAPGAConcurrent(int numThreads, BinaryUtil decoderUtil, int maxPopulationSize, int minPopulationSize,
+			int maxEffort, double compFactor, double mutationRate) {
+		this(numThreads, decoderUtil, maxPopulationSize, minPopulationSize, maxEffort, compFactor, mutationRate,
+				Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Sets the number of threads.
+	 *
+	 * @see RAPGA
+	 */
+	public RAPGAConcurrent(int numThreads, BinaryUtil decoderUtil, int maxPopulationSize, int minPopulationSize,
+			int maxEffort, double compFactor, double mutationRate, int maxSteps) {
+		super(numThreads, decoderUtil, maxPopulationSize, minPopulationSize, maxEffort, compFactor, mutationRate,
+				maxSteps);
+	}
+}
@@ -0,0 +1,332 @@
+package erozic.optimisation.algorithms.metaheuristics.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import erozic.optimisation.algorithms.metaheuristics.SteadyStateVectorGA;
+import erozic.optimisation.solutions.VectorSolution;
+import erozic.optimisation.utils.VectorUtil;
+
+/**
+ * An asynchronous {@link SteadyStateVectorGA}, meant for functions that are
+ * expensive to evaluate: a number of workers each keep on making children -
+ * selecting three individuals, making a child of the better two, mutating and
+ * evaluating it and putting it in place of the worst one - without waiting
+ * for each other. The algorithm thread is the master: every step it takes a
+ * child that a worker made (so a step is still one child), checks whether it
+ * is the best so far and notifies the listeners.
+ *
+ * Every place in the {@link #population} has its own lock, and the workers
+ * hold a lock only to copy the values of a parent or to replace an individual,
+ * never during an evaluation. The three individuals of a selection are
+ * ranked by the fitnesses read under their locks together with the
+ * {@link #versions} of their places, and a child replaces the worst one if no
+ * other child has replaced it in the meantime (the version of the place is
+ * the same); if one has, it replaces it only if it is better than it.
+ *
+ * A child that gets into the population is compared to the {@link #best} one
+ * so far while it is still in its place (under the lock of the place), so
+ * even a child that is replaced right away can't be missed; the master only
+ * takes the best one from there. The workers tell the master about their
+ * children through a bounded queue, so they wait if the master lags behind
+ * (e.g. when paused). The listeners get a copy of the population, made under
+ * the locks.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class SteadyStateVectorGAConcurrent extends SteadyStateVectorGA {
+
+	/** How long (in milliseconds) a thread waits on the queue before it checks whether it should stop */
+	private static final long POLL_MILLIS = 10;
+
+	private int numThreads;
+
+	private ForkJoinPool threadPool;
+
+	/** Whether the workers should keep on making children */
+	private volatile boolean running;
+
+	/** What broke one of the workers, if anything */
+	private volatile Throwable failure;
+
+	/** The lock of every place in the {@link #population} */
+	private Object[] locks;
+
+	/** How many times every place in the {@link #population} got a new individual */
+	private int[] versions;
+
+	/** The best individual that got into the {@link #population}, guarded by itself */
+	private VectorSolution best;
+
+	/** The places the workers put children in, -1 for a child that was dropped */
+	private BlockingQueue<Integer> inserted;
+
+	/** The copy of the {@link #population} the listeners get */
+	private List<VectorSolution> populationCopy;
+
+	/**
+	 * Calls the other constructor with maxSteps = Integer.MAX_Value.
+	 */
+	public SteadyStateVectorGAConcurrent(int numThreads, VectorUtil vectorUtil, int populationSize,
+			double mutationIntensity) {
+		this(numThreads, vectorUtil, populationSize, mutationIntensity, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Sets the number of threads (workers).
+	 *
+	 * @see SteadyStateVectorGA
+	 */
+	public SteadyStateVectorGAConcurrent(int numThreads, VectorUtil vectorUtil, int populationSize,
+			double mutationIntensity, int maxSteps) {
+		super(vectorUtil, populationSize, mutationIntensity, maxSteps);
+		this.numThreads = numThreads;
+
+		locks = new Object[populationSize];
+		for (int i = 0; i < populationSize; i++) {
+			locks[i] = new Object();
+		}
+		versions = new int[populationSize];
+		best = new VectorSolution(vectorUtil.getDimensions());
+		inserted = new ArrayBlockingQueue<Integer>(numThreads);
+
+		populationCopy = new ArrayList<VectorSolution>(populationSize);
+		for (int i = 0; i < populationSize; i++) {
+			populationCopy.add(new VectorSolution(vectorUtil.getDimensions()));
+		}
+	}
+
+	@Override
+	protected void algorithmStart() {
+
+		System.out.println("[ " + Thread.currentThread().getName() + " ] " + this.getClass().getSimpleName()
+				+ " running on " + numThreads + " threads.");
+
+		super.algorithmStart();
+
+		best.makeACloneOf(currentBestSolution);
+
+		running = true;
+		threadPool = new ForkJoinPool(numThreads);
+		for (int i = 0; i < numThreads; i++) {
+			threadPool.submit(() -> {
+				// this is the job that is done
+				try {
+					makeChildrenWhileRunning();
+				} catch (Throwable e) {
+					failure = e;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Takes a child made by a worker, checks if there is a new best one and
+	 * notifies the listeners (every {@link #stateChangedInterval} steps).
+	 */
+	@Override
+	protected void algorithmStep() {
+
+		int slot;
+		try {
+			slot = takeInserted();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			stop();
+			return;
+		}
+
+		if (slot >= 0) {
+			checkIfBest();
+		}
+
+		if (currentStep % stateChangedInterval == 0) {
+			copyPopulation();
+			fireStateChanged(populationCopy);
+		}
+	}
+
+	/**
+	 * Stops the workers and checks whether the children they made after the
+	 * last step include a new best one.
+	 */
+	@Override
+	protected void algorithmEnd() {
+
+		running = false;
+		threadPool.shutdown();
+		try {
+			threadPool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		inserted.clear();
+		checkIfBest();
+
+		super.algorithmEnd();
+	}
+
+	/**
+	 * @return the place of the next child made by a worker (-1 if it was
+	 *         dropped)
+	 */
+	private int takeInserted() throws InterruptedException {
+
+		Integer slot;
+		while ((slot = inserted.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+			if (failure != null)
+				throw new IllegalStateException("Something broke in one of the jobs:\n" + failure.getMessage(), failure);
+		}
+		return slot;
+	}
+
+	/**
+	 * Makes children until the {@link #running} is set to false, in a child
+	 * solution of its own.
+	 */
+	private void makeChildrenWhileRunning() {
+
+		int[] selected = new int[3];
+		int[] selectedVersions = new int[3];
+		double[] selectedFitnesses = new double[3];
+		VectorSolution child = new VectorSolution(vectorUtil.getDimensions());
+
+		while (running) {
+
+			selection(selected, selectedVersions, selectedFitnesses);
+
+			crossover(selected[0], selected[1], child);
+
+			mutatation(child);
+
+			vectorUtil.evaluate(child);
+
+			int slot = insert(child, selected[2], selectedVersions[2]);
+
+			try {
+				while (!inserted.offer(slot, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+					if (!running)
+						return;
+				}
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * The same as {@link #selection(int[])}, but the fitnesses of the three
+	 * individuals are read (one at a time) under their locks, together with
+	 * the versions of their places, and they are ranked by those, so the
+	 * version of the worst one is the version of the individual that was
+	 * ranked the worst.
+	 */
+	private void selection(int[] selected, int[] selectedVersions, double[] selectedFitnesses) {
+
+		selection(selected);
+
+		for (int i = 0; i < 3; i++) {
+			synchronized (locks[selected[i]]) {
+				selectedVersions[i] = versions[selected[i]];
+				selectedFitnesses[i] = fitnesses[selected[i]];
+			}
+		}
+
+		// an insertion sort from the best to the worst, by the fitnesses read under the locks
+		for (int i = 1; i < 3; i++) {
+			for (int j = i; j > 0 && selectedFitnesses[j] > selectedFitnesses[j - 1]; j--) {
+				swap(selected, j);
+				swap(selectedVersions, j);
+				double t = selectedFitnesses[j];
+				selectedFitnesses[j] = selectedFitnesses[j - 1];
+				selectedFitnesses[j - 1] = t;
+			}
+		}
+	}
+
+	private static void swap(int[] array, int j) {
+		int t = array[j];
+		array[j] = array[j - 1];
+		array[j - 1] = t;
+	}
+
+	/**
+	 * The same as {@link #crossover(VectorSolution, VectorSolution, VectorSolution)}
+	 * but the values of the parents are read (one parent at a time) under
+	 * their locks.
+	 */
+	private void crossover(int parent1, int parent2, VectorSolution child) {
+
+		double[] childValues = child.getValues();
+
+		synchronized (locks[parent1]) {
+			System.arraycopy(population.get(parent1).getValues(), 0, childValues, 0, childValues.length);
+		}
+		synchronized (locks[parent2]) {
+			double[] values2 = population.get(parent2).getValues();
+			for (int i = 0; i < childValues.length; i++) {
+				childValues[i] = (childValues[i] + values2[i]) / 2;
+			}
+		}
+	}
+
+	/**
+	 * Puts the child in the given place if the individual there is still the
+	 * one it was selected to replace (the version of the place is the same) or
+	 * if the child is better than it, and then (still under the lock of the
+	 * place) checks if it is the {@link #best} one so far.
+	 *
+	 * @return the place, or -1 if the child was dropped
+	 */
+	private int insert(VectorSolution child, int slot, int version) {
+
+		synchronized (locks[slot]) {
+			if (versions[slot] != version && !(child.getFitness() > fitnesses[slot]))
+				return -1;
+
+			population.get(slot).makeACloneOf(child);
+			fitnesses[slot] = child.getFitness();
+			versions[slot]++;
+
+			synchronized (best) {
+				if (best.compareTo(child) > 0) {
+					best.makeACloneOf(child);
+				}
+			}
+		}
+		return slot;
+	}
+
+	/**
+	 * Checks if the {@link #best} one that got into the population is better
+	 * than the current best solution and fires an update event if it is.
+	 */
+	private void checkIfBest() {
+
+		boolean improved = false;
+		synchronized (best) {
+			if (currentBestSolution.compareTo(best) > 0) {
+				currentBestSolution.makeACloneOf(best);
+				improved = true;
+			}
+		}
+		if (improved) {
+			fireCurrentBestSolutionUpdated(currentBestSolution);
+		}
+	}
+
+	private void copyPopulation() {
+
+		for (int i = 0; i < populationSize; i++) {
+			synchronized (locks[i]) {
+				populationCopy.get(i).makeACloneOf(population.get(i));
+			}
+		}
+	}
+}
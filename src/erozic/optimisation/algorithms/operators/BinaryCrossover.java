@@ -0,0 +1,156 @@
+package erozic.optimisation.algorithms.operators;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import erozic.optimisation.solutions.BinarySolution;
+
+/**
+ * Standard crossover operators (single-point, two-point and uniform) for
+ * {@link BinarySolution}s, working on the packed words of the genotypes: the
+ * contiguous segments are copied with {@link System#arraycopy} (with masks for
+ * the words at the ends of a segment) and the uniform crossover mixes 64 bits
+ * at a time with a random mask.
+ *
+ * The children are written into the given (preallocated) solutions of the same
+ * length as the parents, so nothing is allocated. The children are NOT
+ * evaluated, but their hashes are invalidated.
+ *
+ * The operators keep no state, so they are thread-safe, and are also available
+ * as {@link Crossover}s (e.g. {@link #SINGLE_POINT}).
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class BinaryCrossover {
+
+	/** The {@link #singlePoint(BinarySolution, BinarySolution, BinarySolution, BinarySolution)} crossover */
+	public static final Crossover<BinarySolution> SINGLE_POINT = BinaryCrossover::singlePoint;
+	/** The {@link #twoPoint(BinarySolution, BinarySolution, BinarySolution, BinarySolution)} crossover */
+	public static final Crossover<BinarySolution> TWO_POINT = BinaryCrossover::twoPoint;
+	/** The {@link #uniform(BinarySolution, BinarySolution, BinarySolution, BinarySolution)} crossover */
+	public static final Crossover<BinarySolution> UNIFORM = BinaryCrossover::uniform;
+	/** The {@link #singlePointOrUniform(BinarySolution, BinarySolution, BinarySolution, BinarySolution)} crossover */
+	public static final Crossover<BinarySolution> SINGLE_POINT_OR_UNIFORM = BinaryCrossover::singlePointOrUniform;
+
+	/**
+	 * Makes the first child from the bits of the first parent before a random
+	 * crossover point and the bits of the second parent after it, and the
+	 * second child the other way around.
+	 */
+	public static void singlePoint(BinarySolution parent1, BinarySolution parent2, BinarySolution child1,
+			BinarySolution child2) {
+
+		Random random = ThreadLocalRandom.current();
+
+		int numBits = parent1.getNumBits();
+		int crossoverPoint = random.nextInt(numBits - 1) + 1;
+
+		copyBits(parent1.getWords(), child1.getWords(), 0, crossoverPoint);
+		copyBits(parent2.getWords(), child1.getWords(), crossoverPoint, numBits);
+		copyBits(parent2.getWords(), child2.getWords(), 0, crossoverPoint);
+		copyBits(parent1.getWords(), child2.getWords(), crossoverPoint, numBits);
+
+		child1.invalidateHash();
+		child2.invalidateHash();
+	}
+
+	/**
+	 * Makes the first child from the bits of the first parent, except between
+	 * two random crossover points where the bits are taken from the second
+	 * parent, and the second child the other way around.
+	 */
+	public static void twoPoint(BinarySolution parent1, BinarySolution parent2, BinarySolution child1,
+			BinarySolution child2) {
+
+		Random random = ThreadLocalRandom.current();
+
+		int numBits = parent1.getNumBits();
+		int first = random.nextInt(numBits);
+		int second = random.nextInt(numBits);
+		if (first > second) {
+			int temp = first;
+			first = second;
+			second = temp;
+		}
+
+		copyBits(parent1.getWords(), child1.getWords(), 0, first);
+		copyBits(parent2.getWords(), child1.getWords(), first, second);
+		copyBits(parent1.getWords(), child1.getWords(), second, numBits);
+		copyBits(parent2.getWords(), child2.getWords(), 0, first);
+		copyBits(parent1.getWords(), child2.getWords(), first, second);
+		copyBits(parent2.getWords(), child2.getWords(), second, numBits);
+
+		child1.invalidateHash();
+		child2.invalidateHash();
+	}
+
+	/**
+	 * Takes every bit of the first child from a randomly chosen parent, and the
+	 * same bit of the second child from the other parent.
+	 */
+	public static void uniform(BinarySolution parent1, BinarySolution parent2, BinarySolution child1,
+			BinarySolution child2) {
+
+		Random random = ThreadLocalRandom.current();
+
+		long[] words1 = parent1.getWords();
+		long[] words2 = parent2.getWords();
+		long[] childWords1 = child1.getWords();
+		long[] childWords2 = child2.getWords();
+
+		// the unused bits of the parents' last words are 0, so they are 0 in the children too
+		for (int i = 0; i < words1.length; i++) {
+			// a 1 in the mask means the bit is taken from the first parent
+			long mask = random.nextLong();
+			childWords1[i] = (words1[i] & mask) | (words2[i] & ~mask);
+			childWords2[i] = (words2[i] & mask) | (words1[i] & ~mask);
+		}
+
+		child1.invalidateHash();
+		child2.invalidateHash();
+	}
+
+	/**
+	 * Chooses randomly (with equal probabilities) between the
+	 * {@link #singlePoint(BinarySolution, BinarySolution, BinarySolution, BinarySolution)}
+	 * and the
+	 * {@link #uniform(BinarySolution, BinarySolution, BinarySolution, BinarySolution)}
+	 * crossover.
+	 */
+	public static void singlePointOrUniform(BinarySolution parent1, BinarySolution parent2, BinarySolution child1,
+			BinarySolution child2) {
+
+		if (ThreadLocalRandom.current().nextBoolean())
+			singlePoint(parent1, parent2, child1, child2);
+		else
+			uniform(parent1, parent2, child1, child2);
+	}
+
+	/**
+	 * Copies the bits from index "from" (inclusive) to index "to" (exclusive)
+	 * of the source words to the same positions in the destination words,
+	 * leaving the other bits of the destination as they were.
+	 */
+	public static void copyBits(long[] source, long[] destination, int from, int to) {
+
+		if (from >= to)
+			return;
+
+		int firstWord = from >>> 6;
+		int lastWord = (to - 1) >>> 6;
+		// the bits from "from" up in the first word, and the bits up to "to - 1" in the last word
+		long firstMask = -1L << from;
+		long lastMask = -1L >>> (63 - ((to - 1) & 63));
+
+		if (firstWord == lastWord) {
+			long mask = firstMask & lastMask;
+			destination[firstWord] = (destination[firstWord] & ~mask) | (source[firstWord] & mask);
+			return;
+		}
+
+		destination[firstWord] = (destination[firstWord] & ~firstMask) | (source[firstWord] & firstMask);
+		System.arraycopy(source, firstWord + 1, destination, firstWord + 1, lastWord - firstWord - 1);
+		destination[lastWord] = (destination[lastWord] & ~lastMask) | (source[lastWord] & lastMask);
+	}
+}
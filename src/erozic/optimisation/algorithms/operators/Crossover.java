@@ -0,0 +1,26 @@
+package erozic.optimisation.algorithms.operators;
+
+import erozic.optimisation.solutions.Solution;
+
+/**
+ * A crossover operator of a genetic algorithm: makes two children from two
+ * parents. The children are written into two given (recycled) individuals, so
+ * an implementation doesn't have to allocate anything; they don't have to be
+ * evaluated.
+ *
+ * Implementations used by a parallel
+ * {@link erozic.optimisation.algorithms.metaheuristics.GeneticAlgorithm} are
+ * called from multiple threads at once (with different children), so they have
+ * to be thread-safe.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public interface Crossover<T extends Solution> {
+
+	/**
+	 * Makes two children of the given parents in the given two individuals.
+	 */
+	public void crossover(T parent1, T parent2, T child1, T child2);
+
+}
@@ -0,0 +1,453 @@
+package erozic.optimisation.algorithms.operators;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import erozic.optimisation.solutions.TSPSolution;
+import erozic.optimisation.utils.TSPUtil;
+
+/**
+ * The Edge Assembly Crossover (EAX) for the TSP, in its "single AB-cycle"
+ * variant, which makes children that consist almost entirely of the edges of
+ * the two parents.
+ *
+ * The edges of the two parents (A and B) that are not common to both are
+ * partitioned into "AB-cycles", i.e. cycles that alternate between the edges of
+ * A and the edges of B. A child is made by taking the tour A and, for one
+ * AB-cycle, replacing its A edges with its B edges. The result is in general a
+ * set of subtours, which are then merged, the smallest first, by the cheapest
+ * 2-opt-like exchange of an edge of the subtour with an edge of another subtour
+ * (looking only at the nearest neighbours of its towns, if possible).
+ *
+ * The tours are held as "links" (the two neighbours of every town, at indices
+ * 2*town and 2*town+1) so applying an AB-cycle costs only as much as the cycle
+ * is long, and the length of a child is calculated from the changes made to A
+ * instead of by evaluating the whole child.
+ *
+ * An instance keeps its own working memory and is NOT thread-safe; every
+ * thread should use its own instance.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class EdgeAssemblyCrossoverTSP {
+
+	// --------------------------------------------------
+	// -- OPERATOR PARAMETERS ---------------------------
+	// --------------------------------------------------
+	/** The number of nearest neighbours considered when merging subtours */
+	protected int neighbourListSize = 10;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	/** The smallest change in length considered an improvement */
+	private static final double EPSILON = 1e-7;
+
+	protected TSPUtil tspUtil;
+	protected int numTowns;
+
+	/** The flat distance matrix, see {@link TSPUtil#getFlatDistances()} */
+	private double[] distances;
+	private int[][] neighbours;
+
+	/** The links of the parents */
+	private int[] linksA;
+	private int[] linksB;
+	/** The links of the parents not (yet) in an AB-cycle, -1 where used up */
+	private int[] remainingA;
+	private int[] remainingB;
+	/** The links of the child being made and of the best child so far */
+	private int[] links;
+	private int[] bestLinks;
+
+	/** The towns of all the AB-cycles, one cycle after another */
+	private int[] cycleTowns;
+	/** Where each AB-cycle starts in {@link #cycleTowns} (and the previous one ends) */
+	private int[] cycleStarts;
+	private int numCycles;
+	/** The (random) order in which the AB-cycles are used for children */
+	private int[] cycleOrder;
+
+	/** The alternating walk used to find the AB-cycles */
+	private int[] walk;
+	/** The even position of every town in the {@link #walk}, or -1 */
+	private int[] walkIndex;
+
+	/** The subtour every town of the child belongs to */
+	private int[] subtour;
+	/** A town of every subtour (used to traverse it) */
+	private int[] subtourTown;
+	/** The number of towns in every subtour, 0 if it was merged into another */
+	private int[] subtourSize;
+
+	/**
+	 * Sets the operator parameters and prepares the working memory.
+	 *
+	 * @param neighbourListSize {@link #neighbourListSize}
+	 */
+	public EdgeAssemblyCrossoverTSP(TSPUtil tspUtil, int neighbourListSize) {
+		this.tspUtil = tspUtil;
+		this.numTowns = tspUtil.getNumTowns();
+		this.neighbourListSize = neighbourListSize;
+
+		this.distances = tspUtil.getFlatDistances();
+		this.neighbours = tspUtil.getNeighbourLists(neighbourListSize);
+
+		linksA = new int[2 * numTowns];
+		linksB = new int[2 * numTowns];
+		remainingA = new int[2 * numTowns];
+		remainingB = new int[2 * numTowns];
+		links = new int[2 * numTowns];
+		bestLinks = new int[2 * numTowns];
+
+		cycleTowns = new int[2 * numTowns];
+		cycleStarts = new int[numTowns + 1];
+		cycleOrder = new int[numTowns];
+
+		walk = new int[2 * numTowns + 1];
+		walkIndex = new int[numTowns];
+
+		subtour = new int[numTowns];
+		subtourTown = new int[numTowns];
+		subtourSize = new int[numTowns];
+	}
+
+	/**
+	 * Uses 10 nearest neighbours, see {@link #EdgeAssemblyCrossoverTSP(TSPUtil, int)}.
+	 */
+	public EdgeAssemblyCrossoverTSP(TSPUtil tspUtil) {
+		this(tspUtil, 10);
+	}
+
+	public int getNeighbourListSize() {
+		return neighbourListSize;
+	}
+
+	/**
+	 * Makes (at most) the given number of children of the two given (evaluated)
+	 * parents, every one from a different, randomly chosen, AB-cycle, and
+	 * replaces the first parent with the best of them if it is shorter than it.
+	 *
+	 * @return true if the first parent was replaced (and re-evaluated)
+	 */
+	public boolean crossover(TSPSolution parentA, TSPSolution parentB, int numChildren) {
+
+		if (numTowns < 5)
+			return false;
+
+		setLinks(parentA.getPath(), linksA);
+		setLinks(parentB.getPath(), linksB);
+
+		findABCycles();
+
+		Random random = ThreadLocalRandom.current();
+
+		for (int i = 0; i < numCycles; i++) {
+			cycleOrder[i] = i;
+		}
+
+		double bestLength = parentA.getPathLength() - EPSILON;
+		boolean improved = false;
+
+		for (int child = 0; child < numChildren && child < numCycles; child++) {
+
+			// a partial Fisher-Yates shuffle, the cycles are used without repetition
+			int randomIndex = child + random.nextInt(numCycles - child);
+			int cycle = cycleOrder[randomIndex];
+			cycleOrder[randomIndex] = cycleOrder[child];
+			cycleOrder[child] = cycle;
+
+			System.arraycopy(linksA, 0, links, 0, 2 * numTowns);
+
+			double length = parentA.getPathLength() + applyABCycle(cycle);
+			length += mergeSubtours();
+
+			if (length < bestLength) {
+				bestLength = length;
+				int[] temp = bestLinks;
+				bestLinks = links;
+				links = temp;
+				improved = true;
+			}
+		}
+
+		if (improved) {
+			linksToPath(bestLinks, parentA.getPath());
+			tspUtil.evaluate(parentA);
+		}
+		return improved;
+	}
+
+	/**
+	 * Partitions the edges of the parents which are not common to both into
+	 * AB-cycles by walking along alternating A and B edges (removing them as they
+	 * are used) and cutting out a cycle every time the walk returns, by a B edge,
+	 * to a town it has left by an A edge.
+	 */
+	private void findABCycles() {
+
+		for (int town = 0; town < numTowns; town++) {
+			for (int k = 0; k < 2; k++) {
+				int a = linksA[2 * town + k];
+				int b = linksB[2 * town + k];
+				remainingA[2 * town + k] = isLinked(linksB, town, a) ? -1 : a;
+				remainingB[2 * town + k] = isLinked(linksA, town, b) ? -1 : b;
+			}
+			walkIndex[town] = -1;
+		}
+
+		numCycles = 0;
+		cycleStarts[0] = 0;
+
+		for (int start = 0; start < numTowns; start++) {
+
+			walk[0] = start;
+			walkIndex[start] = 0;
+			int walkLength = 1;
+
+			while (walkLength > 0) {
+
+				// the last town of the walk is always on an even position, left by an A edge
+				int current = walk[walkLength - 1];
+				int next = takeEdge(remainingA, current);
+				if (next < 0) {
+					assert walkLength == 1;
+					walkIndex[current] = -1;
+					break;
+				}
+				walk[walkLength++] = next;
+
+				int after = takeEdge(remainingB, next);
+				assert after >= 0;
+
+				int index = walkIndex[after];
+				if (index >= 0) {
+					// cut out the cycle from "after" to the end of the walk
+					int cycleEnd = cycleStarts[numCycles];
+					for (int i = index; i < walkLength; i++) {
+						cycleTowns[cycleEnd++] = walk[i];
+						if (i > index && (i & 1) == 0)
+							walkIndex[walk[i]] = -1;
+					}
+					cycleStarts[++numCycles] = cycleEnd;
+					walkLength = index + 1;
+				} else {
+					walkIndex[after] = walkLength;
+					walk[walkLength++] = after;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces, in the {@link #links} of the child, the A edges of the given
+	 * AB-cycle with its B edges.
+	 *
+	 * @return the resulting change in the total length of the edges
+	 */
+	private double applyABCycle(int cycle) {
+
+		int from = cycleStarts[cycle];
+		int length = cycleStarts[cycle + 1] - from;
+
+		double delta = 0;
+
+		for (int i = 0; i < length; i++) {
+			int town = cycleTowns[from + i];
+			int previous = cycleTowns[from + (i == 0 ? length - 1 : i - 1)];
+			int next = cycleTowns[from + (i == length - 1 ? 0 : i + 1)];
+
+			// an even town is left by an A edge and reached by a B edge, an odd one the other way
+			if ((i & 1) == 0) {
+				replaceLink(links, town, next, previous);
+				delta += distances[town * numTowns + previous] - distances[town * numTowns + next];
+			} else {
+				replaceLink(links, town, previous, next);
+			}
+		}
+		return delta;
+	}
+
+	/**
+	 * Finds the subtours in the {@link #links} of the child and merges them into
+	 * a single tour, always merging the smallest subtour with another one by the
+	 * cheapest exchange of two edges.
+	 *
+	 * @return the resulting change in the total length of the edges
+	 */
+	private double mergeSubtours() {
+
+		for (int town = 0; town < numTowns; town++) {
+			subtour[town] = -1;
+		}
+
+		int numSubtours = 0;
+		for (int town = 0; town < numTowns; town++) {
+			if (subtour[town] >= 0)
+				continue;
+			subtourTown[numSubtours] = town;
+			subtourSize[numSubtours] = labelSubtour(town, numSubtours);
+			numSubtours++;
+		}
+
+		double delta = 0;
+
+		for (int remaining = numSubtours; remaining > 1; remaining--) {
+
+			int smallest = -1;
+			for (int i = 0; i < numSubtours; i++) {
+				if (subtourSize[i] > 0 && (smallest < 0 || subtourSize[i] < subtourSize[smallest]))
+					smallest = i;
+			}
+
+			double bestCost = Double.POSITIVE_INFINITY;
+			int bestU1 = -1, bestU2 = -1, bestV1 = -1, bestV2 = -1;
+
+			for (int pass = 0; pass < 2 && bestU1 < 0; pass++) {
+
+				// first look only at the nearest neighbours, and at all towns if that fails
+				int start = subtourTown[smallest];
+				int previous = links[2 * start + 1];
+				int u1 = start;
+				do {
+					int[] candidates = (pass == 0) ? neighbours[u1] : null;
+					int numCandidates = (pass == 0) ? candidates.length : numTowns;
+
+					for (int c = 0; c < numCandidates; c++) {
+						int v1 = (pass == 0) ? candidates[c] : c;
+						if (subtour[v1] == smallest)
+							continue;
+						double added = distances[u1 * numTowns + v1];
+
+						for (int k = 0; k < 2; k++) {
+							int u2 = links[2 * u1 + k];
+							double removedU = distances[u1 * numTowns + u2];
+
+							for (int m = 0; m < 2; m++) {
+								int v2 = links[2 * v1 + m];
+								double cost = added + distances[u2 * numTowns + v2] - removedU
+										- distances[v1 * numTowns + v2];
+								if (cost < bestCost) {
+									bestCost = cost;
+									bestU1 = u1;
+									bestU2 = u2;
+									bestV1 = v1;
+									bestV2 = v2;
+								}
+							}
+						}
+					}
+
+					int next = (links[2 * u1] != previous) ? links[2 * u1] : links[2 * u1 + 1];
+					previous = u1;
+					u1 = next;
+				} while (u1 != start);
+			}
+
+			int mergedInto = subtour[bestV1];
+			labelSubtour(subtourTown[smallest], mergedInto);
+			subtourSize[mergedInto] += subtourSize[smallest];
+			subtourSize[smallest] = 0;
+
+			// replace (u1,u2) and (v1,v2) with (u1,v1) and (u2,v2)
+			replaceLink(links, bestU1, bestU2, bestV1);
+			replaceLink(links, bestU2, bestU1, bestV2);
+			replaceLink(links, bestV1, bestV2, bestU1);
+			replaceLink(links, bestV2, bestV1, bestU2);
+
+			delta += bestCost;
+		}
+		return delta;
+	}
+
+	/**
+	 * Sets the {@link #subtour} of all the towns in the subtour (in the
+	 * {@link #links} of the child) containing the given town to the given value.
+	 *
+	 * @return the number of towns in the subtour
+	 */
+	private int labelSubtour(int start, int label) {
+
+		int size = 0;
+		int previous = links[2 * start + 1];
+		int town = start;
+		do {
+			subtour[town] = label;
+			size++;
+			int next = (links[2 * town] != previous) ? links[2 * town] : links[2 * town + 1];
+			previous = town;
+			town = next;
+		} while (town != start);
+
+		return size;
+	}
+
+	/**
+	 * Removes an edge of the given town from the given remaining edges (at both
+	 * of its towns).
+	 *
+	 * @return the other town of the removed edge, or -1 if the town has no
+	 *         remaining edges
+	 */
+	private static int takeEdge(int[] remaining, int town) {
+
+		for (int k = 0; k < 2; k++) {
+			int other = remaining[2 * town + k];
+			if (other >= 0) {
+				remaining[2 * town + k] = -1;
+				if (remaining[2 * other] == town)
+					remaining[2 * other] = -1;
+				else
+					remaining[2 * other + 1] = -1;
+				return other;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isLinked(int[] links, int town, int other) {
+		return links[2 * town] == other || links[2 * town + 1] == other;
+	}
+
+	/**
+	 * Replaces the "oldTown" with the "newTown" among the neighbours of the given
+	 * town.
+	 */
+	private static void replaceLink(int[] links, int town, int oldTown, int newTown) {
+
+		if (links[2 * town] == oldTown) {
+			links[2 * town] = newTown;
+		} else {
+			assert links[2 * town + 1] == oldTown;
+			links[2 * town + 1] = newTown;
+		}
+	}
+
+	/**
+	 * Sets the links of every town of the given path.
+	 */
+	private void setLinks(int[] path, int[] links) {
+
+		for (int i = 0; i < numTowns; i++) {
+			int town = path[i];
+			links[2 * town] = path[i == 0 ? numTowns - 1 : i - 1];
+			links[2 * town + 1] = path[i == numTowns - 1 ? 0 : i + 1];
+		}
+	}
+
+	/**
+	 * Writes the tour given by the links (which must be a single cycle) into the
+	 * given path, starting from the first town.
+	 */
+	private void linksToPath(int[] links, int[] path) {
+
+		int previous = links[1];
+		int town = 0;
+		for (int i = 0; i < numTowns; i++) {
+			path[i] = town;
+			int next = (links[2 * town] != previous) ? links[2 * town] : links[2 * town + 1];
+			previous = town;
+			town = next;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package erozic.optimisation.algorithms.operators;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import erozic.optimisation.solutions.Solution;
+
+/**
+ * A (mu + lambda) replacement - the fittest populationSize individuals of the
+ * current population and its children together make the next population. This
+ * makes the algorithm elitist, because the best are kept in the "gene pool"
+ * and can't be lost.
+ *
+ * They are moved to the beginning of the pool in place, with a quickselect
+ * (in expected O(n)), so the next population is NOT sorted.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class ElitistReplacement<T extends Solution> implements Replacement<T> {
+
+	@Override
+	public void replace(List<T> pool, int populationSize) {
+
+		Random random = ThreadLocalRandom.current();
+
+		// the individual at index k has to end up where it would be if the pool were sorted
+		int k = populationSize - 1;
+		int left = 0;
+		int right = pool.size() - 1;
+
+		while (left < right) {
+			T pivot = pool.get(left + random.nextInt(right - left + 1));
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (pool.get(i).compareTo(pivot) < 0)
+					i++;
+				while (pool.get(j).compareTo(pivot) > 0)
+					j--;
+				if (i <= j) {
+					T temp = pool.get(i);
+					pool.set(i, pool.get(j));
+					pool.set(j, temp);
+					i++;
+					j--;
+				}
+			}
+			// [left, j] are at least as good as the pivot, [i, right] at most as good
+			if (k <= j)
+				right = j;
+			else if (k >= i)
+				left = i;
+			else
+				break;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package erozic.optimisation.algorithms.operators;
+
+import java.util.List;
+
+import erozic.optimisation.solutions.Solution;
+
+/**
+ * A generational replacement - the children replace the current population,
+ * except for its {@link #numElites} fittest individuals which survive. There
+ * have to be at least (populationSize - numElites) children; if there are more
+ * the first ones are taken.
+ *
+ * The replaced individuals are swapped into the places of the children, so
+ * they can be recycled.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class GenerationalReplacement<T extends Solution> implements Replacement<T> {
+
+	// --------------------------------------------------
+	// -- OPERATOR PARAMETERS ---------------------------
+	// --------------------------------------------------
+	/** How many of the fittest individuals survive into the next population */
+	protected int numElites;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	/**
+	 * @param numElites {@link #numElites}
+	 */
+	public GenerationalReplacement(int numElites) {
+		if (numElites < 0)
+			throw new IllegalArgumentException("The number of elites can't be negative (" + numElites + ")!");
+		this.numElites = numElites;
+	}
+
+	public int getNumElites() {
+		return numElites;
+	}
+
+	@Override
+	public void replace(List<T> pool, int populationSize) {
+
+		int numElites = Math.min(this.numElites, populationSize);
+		if (pool.size() - populationSize < populationSize - numElites)
+			throw new IllegalArgumentException("There are only " + (pool.size() - populationSize)
+					+ " children to replace " + (populationSize - numElites) + " individuals!");
+
+		// move the elites to the beginning, a selection sort is fine for a few of them
+		for (int e = 0; e < numElites; e++) {
+			int best = e;
+			for (int i = e + 1; i < populationSize; i++) {
+				if (pool.get(i).compareTo(pool.get(best)) < 0)
+					best = i;
+			}
+			swap(pool, e, best);
+		}
+
+		for (int i = numElites; i < populationSize; i++) {
+			swap(pool, i, populationSize + i - numElites);
+		}
+	}
+
+	private static <T> void swap(List<T> pool, int i, int j) {
+		T temp = pool.get(i);
+		pool.set(i, pool.get(j));
+		pool.set(j, temp);
+	}
+}
@@ -0,0 +1,178 @@
+package erozic.optimisation.algorithms.operators;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import erozic.optimisation.solutions.BinarySolution;
+
+/**
+ * A mutation operator that flips every bit of a genotype independently with the
+ * given {@link #mutationRate} probability, but instead of drawing a random
+ * number for every bit it draws the gaps between the flipped bits, which are
+ * geometrically distributed: the number of bits skipped before the next flip is
+ * floor(ln(U) / ln(1 - rate)) for U uniform on (0,1]. This gives exactly the
+ * same distribution of mutations with a cost proportional to the number of
+ * flipped bits instead of the length of the genotype (e.g. about 3 random
+ * numbers instead of 100 per 100 bits, for a rate of 0.03).
+ *
+ * The positions of the flipped bits of the last mutation are recorded (see
+ * {@link #getFlippedPositions()}), so they can also be applied to any other
+ * representation of a genotype (see {@link #samplePositions(int)}) or used to
+ * re-evaluate the mutated solution incrementally (see
+ * {@link erozic.optimisation.utils.BinaryUtil#evaluate(BinarySolution, int[], int)}).
+ *
+ * An instance keeps the recorded positions and is NOT thread-safe; every
+ * thread should use its own instance (see {@link #perThread(double, int)}).
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class GeometricBitFlipMutation {
+
+	// --------------------------------------------------
+	// -- OPERATOR PARAMETERS ---------------------------
+	// --------------------------------------------------
+	/** The probability of a single-bit mutation */
+	protected double mutationRate;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	/** ln(1 - mutationRate), the denominator of the gap calculation */
+	private double logComplement;
+
+	/** The positions flipped by the last mutation, ascending */
+	private int[] flipped;
+	private int numFlipped;
+
+	/**
+	 * @param mutationRate {@link #mutationRate}
+	 * @param numBits the (expected maximum) length of the genotypes, for
+	 *            preallocation
+	 */
+	public GeometricBitFlipMutation(double mutationRate, int numBits) {
+		if (mutationRate < 0 || mutationRate > 1)
+			throw new IllegalArgumentException("The mutation rate has to be in [0,1], not " + mutationRate + "!");
+		this.mutationRate = mutationRate;
+		this.logComplement = Math.log(1 - mutationRate);
+		this.flipped = new int[Math.max(16, (int) (2 * mutationRate * numBits) + 16)];
+	}
+
+	public double getMutationRate() {
+		return mutationRate;
+	}
+
+	/**
+	 * @return a {@link Mutation} that mutates with a separate instance of this
+	 *         operator (with the given parameters) in every thread, so it is
+	 *         thread-safe
+	 */
+	public static PerThread perThread(double mutationRate, int numBits) {
+
+		if (mutationRate < 0 || mutationRate > 1)
+			throw new IllegalArgumentException("The mutation rate has to be in [0,1], not " + mutationRate + "!");
+
+		return new PerThread(mutationRate, numBits);
+	}
+
+	/**
+	 * A {@link Mutation} with a separate {@link GeometricBitFlipMutation} in
+	 * every thread, see {@link GeometricBitFlipMutation#perThread(double, int)}.
+	 */
+	public static class PerThread implements Mutation<BinarySolution> {
+
+		private ThreadLocal<GeometricBitFlipMutation> operators;
+
+		private PerThread(double mutationRate, int numBits) {
+			operators = ThreadLocal.withInitial(() -> new GeometricBitFlipMutation(mutationRate, numBits));
+		}
+
+		/**
+		 * @return the operator of the current thread, e.g. to get the
+		 *         positions flipped by its last mutation
+		 */
+		public GeometricBitFlipMutation current() {
+			return operators.get();
+		}
+
+		@Override
+		public void mutate(BinarySolution individual) {
+			operators.get().mutate(individual);
+		}
+	}
+
+	/**
+	 * Flips the bits of the given individual at the positions given by
+	 * {@link #samplePositions(int)}. The individual is NOT re-evaluated.
+	 *
+	 * @return the number of flipped bits
+	 */
+	public int mutate(BinarySolution individual) {
+
+		int count = samplePositions(individual.getNumBits());
+		for (int i = 0; i < count; i++) {
+			individual.flipBit(flipped[i]);
+		}
+		return count;
+	}
+
+	/**
+	 * Randomly chooses the positions (out of the given number) to mutate, each
+	 * one with the {@link #mutationRate} probability, and records them so they
+	 * are available through {@link #getFlippedPositions()}.
+	 *
+	 * @return the number of chosen positions
+	 */
+	public int samplePositions(int length) {
+
+		numFlipped = 0;
+
+		if (mutationRate == 0)
+			return 0;
+
+		if (mutationRate == 1) {
+			for (int position = 0; position < length; position++) {
+				record(position);
+			}
+			return numFlipped;
+		}
+
+		Random random = ThreadLocalRandom.current();
+
+		int position = -1;
+		while (true) {
+			// 1 - nextDouble() is in (0,1], so the logarithm is finite
+			double gap = Math.floor(Math.log(1 - random.nextDouble()) / logComplement);
+			if (gap >= length - position - 1)
+				break;
+			position += 1 + (int) gap;
+			record(position);
+		}
+		return numFlipped;
+	}
+
+	/**
+	 * @return the positions chosen by the last mutation (or
+	 *         {@link #samplePositions(int)}) in ascending order; only the first
+	 *         {@link #getNumFlipped()} elements are valid
+	 */
+	public int[] getFlippedPositions() {
+		return flipped;
+	}
+
+	/**
+	 * @return the number of positions chosen by the last mutation (or
+	 *         {@link #samplePositions(int)})
+	 */
+	public int getNumFlipped() {
+		return numFlipped;
+	}
+
+	private void record(int position) {
+		if (numFlipped == flipped.length) {
+			int[] larger = new int[2 * flipped.length];
+			System.arraycopy(flipped, 0, larger, 0, numFlipped);
+			flipped = larger;
+		}
+		flipped[numFlipped++] = position;
+	}
+}
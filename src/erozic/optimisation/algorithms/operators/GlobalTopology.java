@@ -0,0 +1,37 @@
+package erozic.optimisation.algorithms.operators;
+
+import java.util.Arrays;
+
+/**
+ * A global (fully connected) topology - the neighbourhood of every particle is
+ * the whole swarm, so every particle is attracted to the best one (the "gbest"
+ * PSO). The best particle is found once per step, in a single pass.
+ *
+ * It keeps no state, so it is thread-safe.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class GlobalTopology implements Topology {
+
+	@Override
+	public void update(double[] bestFitnesses, int[] localBests) {
+		Arrays.fill(localBests, 0, bestFitnesses.length, findBest(bestFitnesses));
+	}
+
+	@Override
+	public int findLocalBest(double[] bestFitnesses, int particleIndex) {
+		return findBest(bestFitnesses);
+	}
+
+	private int findBest(double[] bestFitnesses) {
+
+		int best = 0;
+		for (int i = 1; i < bestFitnesses.length; i++) {
+			if (bestFitnesses[i] > bestFitnesses[best]) {
+				best = i;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,317 @@
+package erozic.optimisation.algorithms.operators;
+
+import erozic.optimisation.solutions.TSPSolution;
+import erozic.optimisation.solutions.TSPTour;
+import erozic.optimisation.utils.TSPUtil;
+
+/**
+ * A bounded-depth Lin-Kernighan style local search for the TSP, combined with
+ * Or-opt (segment insertion) moves, which can be applied to any
+ * {@link TSPSolution} to bring it to a local optimum.
+ *
+ * An LK move starts by removing an edge (t1,t2) of the tour and then repeatedly
+ * adds an edge (t2,t3) to one of the nearest neighbours of t2 and removes the
+ * edge (t3,t4) that allows the tour to be closed with (t4,t1), each step being a
+ * 2-opt move made on a {@link TSPTour} (the one giving the shortest closed tour
+ * is chosen at every step). The chain continues from t4 while the
+ * partial gain stays positive, for at most {@link #maxDepth} steps, and the
+ * tour is then rolled back to the point of the best total gain.<br>
+ * An Or-opt move takes a segment of up to {@link #maxSegmentLength} towns and
+ * inserts it (possibly reversed) between two other, neighbouring, towns.
+ *
+ * Towns whose surroundings changed are kept in a queue (the "don't look bits"
+ * technique) so after the first local optimum is reached, an improvement from
+ * a few towns (e.g. after a perturbation) costs a lot less than O(n).
+ *
+ * An instance keeps its own working memory and is NOT thread-safe; every
+ * thread should use its own instance.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class LinKernighanTSP {
+
+	// --------------------------------------------------
+	// -- OPERATOR PARAMETERS ---------------------------
+	// --------------------------------------------------
+	/** The maximum number of 2-opt steps in a single LK move */
+	protected int maxDepth = 5;
+	/** The number of nearest neighbours considered for a new edge */
+	protected int neighbourListSize = 8;
+	/** The maximum number of towns in a segment moved by an Or-opt move */
+	protected int maxSegmentLength = 3;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	/** The smallest change in length considered an improvement */
+	private static final double EPSILON = 1e-7;
+
+	protected TSPUtil tspUtil;
+	protected int numTowns;
+
+	private int[][] neighbours;
+	private TSPTour tour;
+
+	/** The towns still to be (re)examined, a circular FIFO queue */
+	private int[] queue;
+	private boolean[] inQueue;
+	private int queueHead;
+	private int queueSize;
+
+	/** The (a,b,c,d) arguments of the 2-opt moves of the current LK move */
+	private int[] moves;
+
+	/**
+	 * Sets the operator parameters and prepares the working memory.
+	 *
+	 * @param maxDepth {@link #maxDepth}
+	 * @param neighbourListSize {@link #neighbourListSize}
+	 */
+	public LinKernighanTSP(TSPUtil tspUtil, int maxDepth, int neighbourListSize) {
+		this.tspUtil = tspUtil;
+		this.numTowns = tspUtil.getNumTowns();
+		this.maxDepth = maxDepth;
+		this.neighbourListSize = neighbourListSize;
+
+		this.neighbours = tspUtil.getNeighbourLists(neighbourListSize);
+		this.tour = new TSPTour(numTowns);
+		this.queue = new int[numTowns];
+		this.inQueue = new boolean[numTowns];
+		this.moves = new int[4 * maxDepth];
+	}
+
+	/**
+	 * Uses a maximum depth of 5 and 8 nearest neighbours, see
+	 * {@link #LinKernighanTSP(TSPUtil, int, int)}.
+	 */
+	public LinKernighanTSP(TSPUtil tspUtil) {
+		this(tspUtil, 5, 8);
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public int getNeighbourListSize() {
+		return neighbourListSize;
+	}
+
+	/**
+	 * Improves the given solution (in place) until no LK or Or-opt move can
+	 * make it shorter, examining all towns.
+	 *
+	 * @return a reference to the given (re-evaluated) solution, for convenience
+	 */
+	public TSPSolution improve(TSPSolution solution) {
+
+		tour.setPath(solution.getPath());
+		for (int town = 0; town < numTowns; town++) {
+			enqueue(town);
+		}
+		return optimise(solution);
+	}
+
+	/**
+	 * Improves the given solution (in place) until no LK or Or-opt move can
+	 * make it shorter, starting only from the first "count" of the given towns
+	 * (and continuing from the towns affected by the improvements). This is
+	 * the way to repair a locally optimal solution after a small perturbation.
+	 *
+	 * @return a reference to the given (re-evaluated) solution, for convenience
+	 */
+	public TSPSolution improve(TSPSolution solution, int[] towns, int count) {
+
+		tour.setPath(solution.getPath());
+		for (int i = 0; i < count; i++) {
+			enqueue(towns[i]);
+		}
+		return optimise(solution);
+	}
+
+	/**
+	 * Processes the towns in the queue until it is empty and evaluates the
+	 * solution.
+	 */
+	private TSPSolution optimise(TSPSolution solution) {
+
+		while (queueSize > 0) {
+			int town = dequeue();
+			if (numTowns < 5)
+				continue;
+			if (lkMove(town) || orOptMove(town)) {
+				enqueue(town);
+			}
+		}
+		return tspUtil.evaluate(solution);
+	}
+
+	/**
+	 * Tries to find an improving LK move starting with the removal of one of
+	 * the two tour edges of the given town. The best found chain of 2-opt
+	 * moves is kept in the tour.
+	 *
+	 * @return true if the tour was improved
+	 */
+	private boolean lkMove(int t1) {
+
+		for (int direction = 0; direction < 2; direction++) {
+
+			int t2 = (direction == 0) ? tour.next(t1) : tour.prev(t1);
+			double partialGain = tspUtil.distance(t1, t2);
+			double bestGain = 0;
+			int bestDepth = 0;
+			int depth = 0;
+
+			while (depth < maxDepth) {
+
+				boolean forward = tour.next(t1) == t2;
+				int bestT3 = -1, bestT4 = -1;
+				double bestValue = Double.NEGATIVE_INFINITY;
+				double bestClosedValue = Double.NEGATIVE_INFINITY;
+
+				for (int t3 : neighbours[t2]) {
+					double gain = partialGain - tspUtil.distance(t2, t3);
+					if (gain <= EPSILON)
+						break; // the neighbours are sorted, it can only get worse
+					if (t3 == t1 || t3 == tour.next(t2) || t3 == tour.prev(t2))
+						continue;
+					int t4 = forward ? tour.prev(t3) : tour.next(t3);
+					double value = gain + tspUtil.distance(t3, t4);
+					double closedValue = value - tspUtil.distance(t4, t1);
+					if (closedValue > bestClosedValue) {
+						bestClosedValue = closedValue;
+						bestValue = value;
+						bestT3 = t3;
+						bestT4 = t4;
+					}
+				}
+				if (bestT3 < 0)
+					break;
+
+				tour.make2OptMove(t1, t2, bestT4, bestT3);
+				moves[4 * depth] = t1;
+				moves[4 * depth + 1] = t2;
+				moves[4 * depth + 2] = bestT4;
+				moves[4 * depth + 3] = bestT3;
+				depth++;
+
+				partialGain = bestValue;
+				double gain = partialGain - tspUtil.distance(bestT4, t1);
+				if (gain > bestGain + EPSILON) {
+					bestGain = gain;
+					bestDepth = depth;
+				}
+				t2 = bestT4;
+			}
+
+			// roll back the moves after the best one
+			while (depth > bestDepth) {
+				depth--;
+				tour.make2OptMove(moves[4 * depth], moves[4 * depth + 2], moves[4 * depth + 1], moves[4 * depth + 3]);
+			}
+
+			if (bestDepth > 0) {
+				for (int i = 0; i < 4 * bestDepth; i++) {
+					enqueue(moves[i]);
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tries to find an improving Or-opt move of a segment starting with the
+	 * given town, and makes the best one found.
+	 *
+	 * @return true if the tour was improved
+	 */
+	private boolean orOptMove(int s1) {
+
+		if (numTowns < maxSegmentLength + 5)
+			return false;
+
+		double bestGain = EPSILON;
+		int bestS2 = -1, bestC = -1, bestD = -1;
+		boolean bestReversed = false;
+
+		int s2 = s1;
+		for (int length = 1; length <= maxSegmentLength; length++) {
+
+			if (length > 1)
+				s2 = tour.next(s2);
+
+			int p = tour.prev(s1);
+			int n = tour.next(s2);
+			double removalGain = tspUtil.distance(p, s1) + tspUtil.distance(s2, n) - tspUtil.distance(p, n);
+			if (removalGain <= bestGain)
+				continue;
+
+			for (int end = 0; end < 2; end++) {
+				int segmentEnd = (end == 0) ? s1 : s2;
+				int otherEnd = (end == 0) ? s2 : s1;
+
+				for (int c : neighbours[segmentEnd]) {
+					double gain = removalGain - tspUtil.distance(c, segmentEnd);
+					if (gain <= bestGain)
+						break;
+					if (c == p || c == n || tour.between(s1, c, s2))
+						continue;
+
+					for (int side = 0; side < 2; side++) {
+						int e = (side == 0) ? tour.next(c) : tour.prev(c);
+						if (e == p || e == n || tour.between(s1, e, s2))
+							continue;
+						double moveGain = gain + tspUtil.distance(c, e) - tspUtil.distance(otherEnd, e);
+						if (moveGain > bestGain) {
+							bestGain = moveGain;
+							bestS2 = s2;
+							// orient the edge so that bestD = next(bestC)
+							bestC = (side == 0) ? c : e;
+							bestD = (side == 0) ? e : c;
+							// the segment is inserted reversed if s2 ends up next to bestC
+							bestReversed = (segmentEnd == s2) == (side == 0);
+						}
+					}
+				}
+			}
+		}
+
+		if (bestS2 < 0)
+			return false;
+
+		int p = tour.prev(s1);
+		int n = tour.next(bestS2);
+
+		tour.make2OptMove(p, s1, bestC, bestD);
+		tour.make2OptMove(p, bestC, n, bestS2);
+		if (!bestReversed) {
+			tour.make2OptMove(bestC, bestS2, s1, bestD);
+		}
+
+		enqueue(p);
+		enqueue(n);
+		enqueue(bestS2);
+		enqueue(bestC);
+		enqueue(bestD);
+		return true;
+	}
+
+	private void enqueue(int town) {
+		if (inQueue[town])
+			return;
+		inQueue[town] = true;
+		int tail = queueHead + queueSize;
+		queue[tail >= numTowns ? tail - numTowns : tail] = town;
+		queueSize++;
+	}
+
+	private int dequeue() {
+		int town = queue[queueHead];
+		inQueue[town] = false;
+		if (++queueHead == numTowns)
+			queueHead = 0;
+		queueSize--;
+		return town;
+	}
+}
@@ -0,0 +1,26 @@
+package erozic.optimisation.algorithms.operators;
+
+import erozic.optimisation.solutions.Solution;
+
+/**
+ * A mutation operator of a genetic algorithm: randomly changes an individual
+ * (without evaluating it).
+ *
+ * Implementations used by a parallel
+ * {@link erozic.optimisation.algorithms.metaheuristics.GeneticAlgorithm} are
+ * called from multiple threads at once (with different individuals), so they
+ * have to be thread-safe; operators with working memory can be given to every
+ * thread separately (see e.g.
+ * {@link GeometricBitFlipMutation#perThread(double, int)}).
+ *
+ * @author Eugen Rožić
+ *
+ */
+public interface Mutation<T extends Solution> {
+
+	/**
+	 * Randomly changes the given individual.
+	 */
+	public void mutate(T individual);
+
+}
@@ -0,0 +1,27 @@
+package erozic.optimisation.algorithms.operators;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import erozic.optimisation.solutions.Solution;
+
+/**
+ * The simplest possible selection operator - picks an individual from the
+ * population completely at random, so there is no selection pressure at all.
+ * It is meant for algorithms that put the pressure elsewhere, e.g. in the
+ * offspring selection (see
+ * {@link erozic.optimisation.algorithms.metaheuristics.GeneticAlgorithm#isAcceptable(Solution, Solution, Solution)}).
+ *
+ * It keeps no state, so it is thread-safe.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class RandomSelection<T extends Solution> implements Selection<T> {
+
+	@Override
+	public T select(List<T> population) {
+
+		return population.get(ThreadLocalRandom.current().nextInt(population.size()));
+	}
+}
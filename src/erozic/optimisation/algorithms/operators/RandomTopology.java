@@ -0,0 +1,120 @@
+package erozic.optimisation.algorithms.operators;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A random dynamic topology (the "adaptive random topology" of the standard
+ * PSO 2007/2011) - every particle informs itself and {@link #numInformed}
+ * particles chosen at random (so the same one can be chosen more than once),
+ * and the links are chosen again after every step in which the best of the
+ * swarm didn't improve.
+ *
+ * The links are kept by the particle they go to (all the links in a single
+ * array, grouped by a counting sort), so the best in a neighbourhood is found
+ * by going through the links of just that particle, in O(numInformed) on
+ * average.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class RandomTopology implements Topology {
+
+	// --------------------------------------------------
+	// -- OPERATOR PARAMETERS ---------------------------
+	// --------------------------------------------------
+	/** The number of particles a particle informs (besides itself) */
+	protected int numInformed;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	/** The particles that inform the particle i are in the {@link #informers} from {@code firstInformer[i]} to {@code firstInformer[i + 1]} */
+	private int[] firstInformer = new int[1];
+	/** The particles every particle is informed by (besides itself), particle after particle */
+	private int[] informers = new int[0];
+	/** The particles the links go to, in the order of the particles they come from */
+	private int[] informed = new int[0];
+
+	/** The best fitness in the swarm in the previous step */
+	private double lastBestFitness = Double.NaN;
+
+	/**
+	 * @param numInformed {@link #numInformed}
+	 */
+	public RandomTopology(int numInformed) {
+		if (numInformed < 0)
+			throw new IllegalArgumentException("The number of informed particles can't be negative, not "
+					+ numInformed + "!");
+		this.numInformed = numInformed;
+	}
+
+	public int getNumInformed() {
+		return numInformed;
+	}
+
+	@Override
+	public void update(double[] bestFitnesses, int[] localBests) {
+
+		double bestFitness = bestFitnesses[0];
+		for (int i = 1; i < bestFitnesses.length; i++) {
+			bestFitness = Math.max(bestFitness, bestFitnesses[i]);
+		}
+
+		if (firstInformer.length != bestFitnesses.length + 1 || !(bestFitness > lastBestFitness)) {
+			makeLinks(bestFitnesses.length);
+		}
+		lastBestFitness = bestFitness;
+
+		for (int i = 0; i < bestFitnesses.length; i++) {
+			localBests[i] = findLocalBest(bestFitnesses, i);
+		}
+	}
+
+	@Override
+	public int findLocalBest(double[] bestFitnesses, int particleIndex) {
+
+		int localBest = particleIndex;
+		for (int j = firstInformer[particleIndex]; j < firstInformer[particleIndex + 1]; j++) {
+			if (bestFitnesses[informers[j]] > bestFitnesses[localBest]) {
+				localBest = informers[j];
+			}
+		}
+		return localBest;
+	}
+
+	/**
+	 * Chooses new links for all the particles and groups them by the particle
+	 * they go to.
+	 */
+	private void makeLinks(int swarmSize) {
+
+		Random random = ThreadLocalRandom.current();
+
+		int numLinks = swarmSize * numInformed;
+		if (firstInformer.length != swarmSize + 1) {
+			firstInformer = new int[swarmSize + 1];
+			informers = new int[numLinks];
+			informed = new int[numLinks];
+		}
+
+		// count the links of every particle, shifted by one...
+		Arrays.fill(firstInformer, 0);
+		for (int l = 0; l < numLinks; l++) {
+			informed[l] = random.nextInt(swarmSize);
+			firstInformer[informed[l] + 1]++;
+		}
+		// ... so the running sums are the first places of the particles...
+		for (int i = 0; i < swarmSize; i++) {
+			firstInformer[i + 1] += firstInformer[i];
+		}
+		// ... which are moved while the links are put in and end up as the last places
+		for (int l = 0; l < numLinks; l++) {
+			informers[firstInformer[informed[l]]++] = l / numInformed;
+		}
+		for (int i = swarmSize; i > 0; i--) {
+			firstInformer[i] = firstInformer[i - 1];
+		}
+		firstInformer[0] = 0;
+	}
+}
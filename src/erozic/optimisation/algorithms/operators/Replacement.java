@@ -0,0 +1,28 @@
+package erozic.optimisation.algorithms.operators;
+
+import java.util.List;
+
+import erozic.optimisation.solutions.Solution;
+
+/**
+ * A replacement operator of a genetic algorithm: decides which of the current
+ * population and its children make the next population.
+ *
+ * The individuals are kept in a "pool": the current population in its first
+ * populationSize places and the (evaluated) children after it. The replacement
+ * rearranges the pool so the next population is in the first populationSize
+ * places, and the individuals after it can be overwritten by the next children.
+ * It is always called from a single thread.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public interface Replacement<T extends Solution> {
+
+	/**
+	 * Moves the individuals of the next population to the first
+	 * populationSize places of the given pool.
+	 */
+	public void replace(List<T> pool, int populationSize);
+
+}
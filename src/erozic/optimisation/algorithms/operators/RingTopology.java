@@ -0,0 +1,105 @@
+package erozic.optimisation.algorithms.operators;
+
+/**
+ * A ring topology - the particles are in a ring (their order in the swarm,
+ * with cyclic boundary conditions) and the neighbourhood of a particle are
+ * the {@link #radius} particles on both sides of it and the particle itself.
+ *
+ * The bests of all the neighbourhoods are found at once with a sliding window
+ * maximum: the window goes around the ring (and a radius further) and a
+ * monotonic deque keeps the particles in it that can still become the best of
+ * a window, so every particle is put into it and taken out of it only once.
+ * That is O(swarmSize) comparisons per step instead of
+ * O(swarmSize * radius). Of equally good particles the first one in the
+ * window is the best.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class RingTopology implements Topology {
+
+	// --------------------------------------------------
+	// -- OPERATOR PARAMETERS ---------------------------
+	// --------------------------------------------------
+	/** The number of particles on each side of a particle in its neighbourhood */
+	protected int radius;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	/** The positions in the (unrolled) ring of the particles in the deque */
+	private int[] dequePositions = new int[0];
+	/** The indices of the particles in the deque */
+	private int[] dequeIndices = new int[0];
+
+	/**
+	 * @param radius {@link #radius}
+	 */
+	public RingTopology(int radius) {
+		if (radius < 0)
+			throw new IllegalArgumentException("The radius of a neighbourhood can't be negative, not " + radius + "!");
+		this.radius = radius;
+	}
+
+	public int getRadius() {
+		return radius;
+	}
+
+	@Override
+	public void update(double[] bestFitnesses, int[] localBests) {
+
+		int swarmSize = bestFitnesses.length;
+		// the window of the particle i goes from the position i to i + 2 * radius of the unrolled ring
+		int length = swarmSize + 2 * radius;
+		if (dequePositions.length < length) {
+			dequePositions = new int[length];
+			dequeIndices = new int[length];
+		}
+
+		int head = 0;
+		int tail = 0;
+		int index = Math.floorMod(-radius, swarmSize);
+		for (int position = 0; position < length; position++) {
+
+			double fitness = bestFitnesses[index];
+			while (tail > head && bestFitnesses[dequeIndices[tail - 1]] < fitness) {
+				tail--;
+			}
+			dequePositions[tail] = position;
+			dequeIndices[tail] = index;
+			tail++;
+
+			int first = position - 2 * radius;
+			if (first >= 0) {
+				while (dequePositions[head] < first) {
+					head++;
+				}
+				localBests[first] = dequeIndices[head];
+			}
+
+			if (++index == swarmSize) {
+				index = 0;
+			}
+		}
+	}
+
+	@Override
+	public int findLocalBest(double[] bestFitnesses, int particleIndex) {
+
+		int swarmSize = bestFitnesses.length;
+
+		int localBest = Math.floorMod(particleIndex - radius, swarmSize);
+
+		int currentIndex = localBest + 1;
+		for (int j = 1; j <= radius * 2; j++) {
+
+			if (currentIndex >= swarmSize) {
+				currentIndex -= swarmSize;
+			}
+			if (bestFitnesses[currentIndex] > bestFitnesses[localBest]) {
+				localBest = currentIndex;
+			}
+			currentIndex++;
+		}
+		return localBest;
+	}
+}
@@ -0,0 +1,26 @@
+package erozic.optimisation.algorithms.operators;
+
+import java.util.List;
+
+import erozic.optimisation.solutions.Solution;
+
+/**
+ * A selection operator of a genetic algorithm: chooses a parent from the
+ * population.
+ *
+ * Implementations used by a parallel
+ * {@link erozic.optimisation.algorithms.metaheuristics.GeneticAlgorithm} are
+ * called from multiple threads at once, so they have to be thread-safe (they
+ * only read the population).
+ *
+ * @author Eugen Rožić
+ *
+ */
+public interface Selection<T extends Solution> {
+
+	/**
+	 * @return an individual of the given population, chosen to be a parent
+	 */
+	public T select(List<T> population);
+
+}
@@ -0,0 +1,42 @@
+package erozic.optimisation.algorithms.operators;
+
+/**
+ * The neighbourhood topology of a particle swarm: determines which particles a
+ * particle is informed by, i.e. whose historical bests it is attracted to.
+ *
+ * A topology is given the fitnesses of the historical bests of all the
+ * particles (index by index, the greater the better) and it finds the index
+ * of the best particle in the neighbourhood of every particle. A topology can
+ * keep state between the steps (e.g. a dynamic one), so an instance can be
+ * used by only one swarm.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public interface Topology {
+
+	/**
+	 * Called once per step, before the particles are moved: changes the
+	 * topology if it is a dynamic one and finds the best particle in the
+	 * neighbourhood of every particle, all at once.
+	 *
+	 * @param bestFitnesses
+	 *            the fitnesses of the historical bests of the particles
+	 * @param localBests
+	 *            the array to put the index of the best particle in the
+	 *            neighbourhood of every particle into
+	 */
+	public void update(double[] bestFitnesses, int[] localBests);
+
+	/**
+	 * Finds the best particle in the neighbourhood of a single particle, as it
+	 * is at the moment. It can be called from multiple threads at once (in
+	 * between the calls to {@link #update(double[], int[])}), so it only reads
+	 * the topology.
+	 *
+	 * @return the index of the best particle in the neighbourhood of the
+	 *         particle with the given index
+	 */
+	public int findLocalBest(double[] bestFitnesses, int particleIndex);
+
+}
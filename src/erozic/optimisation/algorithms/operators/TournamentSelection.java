@@ -0,0 +1,56 @@
+package erozic.optimisation.algorithms.operators;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import erozic.optimisation.solutions.Solution;
+
+/**
+ * A k-tournament selection operator - picks k individuals from the population
+ * at random and returns the fittest one. The larger the k the larger the
+ * selection pressure.
+ *
+ * It keeps no state, so it is thread-safe.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class TournamentSelection<T extends Solution> implements Selection<T> {
+
+	// --------------------------------------------------
+	// -- OPERATOR PARAMETERS ---------------------------
+	// --------------------------------------------------
+	/** How many individuals compete in a tournament */
+	protected int kTour;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	/**
+	 * @param kTour {@link #kTour}
+	 */
+	public TournamentSelection(int kTour) {
+		if (kTour < 1)
+			throw new IllegalArgumentException("At least one individual has to compete in a tournament, not " + kTour
+					+ "!");
+		this.kTour = kTour;
+	}
+
+	public int getKTour() {
+		return kTour;
+	}
+
+	@Override
+	public T select(List<T> population) {
+
+		Random random = ThreadLocalRandom.current();
+
+		T winner = population.get(random.nextInt(population.size()));
+		for (int i = 1; i < kTour; i++) {
+			T candidate = population.get(random.nextInt(population.size()));
+			if (candidate.getFitness() > winner.getFitness())
+				winner = candidate;
+		}
+		return winner;
+	}
+}
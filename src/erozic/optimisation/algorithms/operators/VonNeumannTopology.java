@@ -0,0 +1,108 @@
+package erozic.optimisation.algorithms.operators;
+
+/**
+ * A von Neumann topology - the particles are in a grid (row by row, in their
+ * order in the swarm) with cyclic boundary conditions, i.e. on a torus, and
+ * the neighbourhood of a particle are the particles above, below, left and
+ * right of it and the particle itself.
+ *
+ * The neighbours of every particle are put into a table when the swarm size
+ * is first seen, so finding the best in a neighbourhood is just 4
+ * comparisons.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class VonNeumannTopology implements Topology {
+
+	/** The number of particles in a neighbourhood */
+	private static final int NEIGHBOURHOOD_SIZE = 5;
+
+	// --------------------------------------------------
+	// -- OPERATOR PARAMETERS ---------------------------
+	// --------------------------------------------------
+	/**
+	 * The number of columns of the grid (it has to divide the swarm size), or 0
+	 * for the grid closest to a square
+	 */
+	protected int columns;
+	// --------------------------------------------------
+	// --------------------------------------------------
+
+	/** The indices of the particles in the neighbourhood of every particle, the particle first */
+	private int[] neighbours = new int[0];
+
+	/**
+	 * Makes the grid closest to a square (for a prime swarm size that is a
+	 * ring).
+	 */
+	public VonNeumannTopology() {
+		this.columns = 0;
+	}
+
+	/**
+	 * @param columns {@link #columns}
+	 */
+	public VonNeumannTopology(int columns) {
+		if (columns < 1)
+			throw new IllegalArgumentException("The grid has to have at least one column, not " + columns + "!");
+		this.columns = columns;
+	}
+
+	@Override
+	public void update(double[] bestFitnesses, int[] localBests) {
+
+		if (neighbours.length != bestFitnesses.length * NEIGHBOURHOOD_SIZE) {
+			makeNeighbours(bestFitnesses.length);
+		}
+
+		for (int i = 0; i < bestFitnesses.length; i++) {
+			localBests[i] = findLocalBest(bestFitnesses, i);
+		}
+	}
+
+	@Override
+	public int findLocalBest(double[] bestFitnesses, int particleIndex) {
+
+		int first = particleIndex * NEIGHBOURHOOD_SIZE;
+
+		int localBest = neighbours[first];
+		for (int j = first + 1; j < first + NEIGHBOURHOOD_SIZE; j++) {
+			if (bestFitnesses[neighbours[j]] > bestFitnesses[localBest]) {
+				localBest = neighbours[j];
+			}
+		}
+		return localBest;
+	}
+
+	private void makeNeighbours(int swarmSize) {
+
+		int columns = this.columns;
+		if (columns == 0) {
+			columns = 1;
+			for (int c = 2; c * c <= swarmSize; c++) {
+				if (swarmSize % c == 0) {
+					columns = c;
+				}
+			}
+		} else if (swarmSize % columns != 0) {
+			throw new IllegalArgumentException("The swarm size (" + swarmSize + ") isn't divisible by the number of"
+					+ " columns (" + columns + ")!");
+		}
+		int rows = swarmSize / columns;
+
+		neighbours = new int[swarmSize * NEIGHBOURHOOD_SIZE];
+		for (int i = 0; i < swarmSize; i++) {
+
+			int row = i / columns;
+			int column = i % columns;
+
+			int first = i * NEIGHBOURHOOD_SIZE;
+			neighbours[first] = i;
+			neighbours[first + 1] = ((row + rows - 1) % rows) * columns + column;
+			neighbours[first + 2] = ((row + 1) % rows) * columns + column;
+			neighbours[first + 3] = row * columns + (column + columns - 1) % columns;
+			neighbours[first + 4] = row * columns + (column + 1) % columns;
+		}
+	}
+}
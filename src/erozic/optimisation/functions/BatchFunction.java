@@ -0,0 +1,26 @@
+package erozic.optimisation.functions;
+
+/**
+ * A function that can calculate the fitnesses of a whole population of input
+ * vectors at once, without a call (and an array) per vector. The population
+ * is a flat array of the vectors one after the other (row-major, an n x d
+ * matrix), which is how e.g. the particles of a swarm are kept anyway.
+ *
+ * This is also where an evaluation that isn't done in Java (a native library,
+ * an external program) can be plugged in, as it gets the whole population.
+ *
+ * @author Eugen Rožić
+ * @version 0.1
+ *
+ */
+public interface BatchFunction extends Function {
+
+	/**
+	 * A method to calculate the fitnesses (see {@link Function#fitness(double...)})
+	 * of the input vectors with indices from "from" (inclusive) to "to"
+	 * (exclusive). The vector with index p is in the inputs from
+	 * p * dimensions, and its fitness is put into fitnesses[p].
+	 */
+	public void fitnesses(double[] inputs, int dimensions, double[] fitnesses, int from, int to);
+
+}
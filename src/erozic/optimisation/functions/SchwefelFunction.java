@@ -7,7 +7,7 @@ package erozic.optimisation.functions;
  * @version 0.1
  *
  */
-public class SchwefelFunction implements Function {
+public class SchwefelFunction implements SeparableFunction {
 	
 	private int minmax;
 	
@@ -35,10 +35,20 @@ public class SchwefelFunction implements Function {
 		
 		double value = 0;
 		for (int i=0; i<input.length; i++){
-			value += (-input[i])*Math.sin(Math.sqrt(Math.abs(input[i])));
+			value += term(input[i]);
 		}
 		value /= input.length;
 		
 		return value;
 	}
+	
+	@Override
+	public double term(double component) {
+		return (-component)*Math.sin(Math.sqrt(Math.abs(component)));
+	}
+	
+	@Override
+	public double fitnessOfSum(double sumOfTerms, int dimensions) {
+		return minmax*(sumOfTerms/dimensions);
+	}
 }
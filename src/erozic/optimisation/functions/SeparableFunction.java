@@ -0,0 +1,45 @@
+package erozic.optimisation.functions;
+
+/**
+ * A function whose value is determined by the sum of the same function (a
+ * term) of every component of the input vector, so when only some components
+ * change only their terms have to be calculated again.
+ *
+ * It can also evaluate a whole population at once (see {@link BatchFunction})
+ * by just summing the terms of every input vector.
+ *
+ * @author Eugen Rožić
+ * @version 0.1
+ *
+ */
+public interface SeparableFunction extends BatchFunction {
+
+	/**
+	 * A method to calculate the term of a single component of the input vector.
+	 */
+	public double term(double component);
+
+	/**
+	 * A method to calculate the fitness (see {@link Function#fitness(double...)})
+	 * given the sum of the terms of all the components of an input vector with
+	 * the given number of dimensions.
+	 */
+	public double fitnessOfSum(double sumOfTerms, int dimensions);
+
+	/**
+	 * Sums the {@link #term(double)}s of every input vector and gets its
+	 * fitness from the sum (see {@link #fitnessOfSum(double, int)}).
+	 */
+	@Override
+	public default void fitnesses(double[] inputs, int dimensions, double[] fitnesses, int from, int to) {
+
+		for (int p = from; p < to; p++) {
+			double sum = 0;
+			for (int i = p * dimensions; i < (p + 1) * dimensions; i++) {
+				sum += term(inputs[i]);
+			}
+			fitnesses[p] = fitnessOfSum(sum, dimensions);
+		}
+	}
+
+}
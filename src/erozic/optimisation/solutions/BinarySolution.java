@@ -1,78 +1,248 @@
 package erozic.optimisation.solutions;
 
+import java.util.Arrays;
+
 import erozic.optimisation.utils.BinaryVectorUtil;
 
 /**
- * A representation of a solution (e.g. a vector of real numbers) by a byte array (a
- * genotype). The information of what exactly the byte array encodes and how to
- * decode it is contained in the
- * {@link BinaryVectorUtil.basic_ga.models.utils.BinaryIndividualDecoder} class.
- * 
+ * A representation of a solution (e.g. a vector of real numbers) by an array of
+ * bits (a genotype). The information of what exactly the bits encode and how to
+ * decode them is contained in an implementation of the
+ * {@link erozic.optimisation.utils.BinaryUtil} class (e.g.
+ * {@link BinaryVectorUtil}).
+ *
+ * The bits are packed 64 to a long "word": bit i is bit (i % 64) of word (i /
+ * 64), counting from the least significant one. The unused (high) bits of the
+ * last word are always 0, so whole words can be compared, copied and counted
+ * (e.g. with {@link Long#bitCount(long)}) without special care for the end of
+ * the genotype; whoever writes the words directly has to keep it that way (see
+ * {@link #lastWordMask(int)}).
+ *
+ * A 64-bit hash of the genotype is calculated lazily and cached (see
+ * {@link #getHash()}). It is the XOR of the hashes of the individual words, so
+ * the bit setting methods update it in O(1), but whoever writes the words
+ * directly has to call {@link #invalidateHash()} afterwards.
+ *
+ * A {@link erozic.optimisation.utils.BinaryUtil} can also keep partial results
+ * of the evaluation of the genotype (e.g. its decoded values) in the
+ * individual (see {@link #getEvaluationState()}), so it can be re-evaluated
+ * incrementally after some of its bits are flipped.
+ *
  * @author Eugen Rožić
- * @version 0.1
+ * @version 0.2
  *
  */
 public class BinarySolution extends Solution {
 
-	private byte[] genotype;
-	
+	/** The packed bits of the genotype */
+	private long[] words;
+	/** The number of bits in the genotype */
+	private int numBits;
+	/** The cached hash of the genotype, valid only if {@link #hashValid} */
+	private long hash;
+	private boolean hashValid;
+	/** The partial results of the last evaluation, valid only if {@link #evaluationStateValid} */
+	private double[] evaluationState;
+	private boolean evaluationStateValid;
+
 	/**
-	 * Instantiates a genotype with numBits elements.
+	 * Instantiates a genotype with numBits bits, all 0.
 	 */
 	public BinarySolution(int numBits) {
-		this.genotype = new byte[numBits];
+		this.numBits = numBits;
+		this.words = new long[numWords(numBits)];
 	}
-	
+
 	/**
-	 * Sets the genotype by reference.
+	 * Sets the genotype words by reference.
 	 */
-	public BinarySolution(byte[] genotype) {
-		this.genotype = genotype;
+	public BinarySolution(long[] words, int numBits) {
+		if (words.length != numWords(numBits))
+			throw new IllegalArgumentException(words.length + " words can't hold exactly " + numBits + " bits!");
+		this.numBits = numBits;
+		this.words = words;
 	}
 
-	public byte[] getGenotype() {
-		return genotype;
+	/**
+	 * @return the number of words necessary to hold the given number of bits
+	 */
+	public static int numWords(int numBits) {
+		return (numBits + 63) >>> 6;
+	}
+
+	/**
+	 * @return the mask of the used bits in the last word of a genotype with the
+	 *         given number of bits
+	 */
+	public static long lastWordMask(int numBits) {
+		return ((numBits & 63) == 0) ? -1L : (1L << numBits) - 1;
+	}
+
+	public int getNumBits() {
+		return numBits;
+	}
+
+	/**
+	 * @return the packed bits of the genotype (the actual array, not a copy);
+	 *         call {@link #invalidateHash()} after changing them
+	 */
+	public long[] getWords() {
+		return words;
 	}
-	
+
+	/**
+	 * @return the bit at the given index, as 0 or 1
+	 */
+	public int getBit(int index) {
+		return (int) (words[index >>> 6] >>> index) & 1;
+	}
+
+	/**
+	 * Sets the bit at the given index to the given value (0 or 1).
+	 */
+	public void setBit(int index, int bit) {
+		int word = index >>> 6;
+		long newWord = (bit == 0) ? words[word] & ~(1L << index) : words[word] | (1L << index);
+		setWord(word, newWord);
+	}
+
+	/**
+	 * Flips the bit at the given index.
+	 */
+	public void flipBit(int index) {
+		int word = index >>> 6;
+		setWord(word, words[word] ^ (1L << index));
+	}
+
+	/**
+	 * Sets the word at the given index, updating the cached hash.
+	 */
+	private void setWord(int index, long newWord) {
+		if (hashValid)
+			hash ^= wordHash(index, words[index]) ^ wordHash(index, newWord);
+		words[index] = newWord;
+	}
+
+	/**
+	 * Returns a 64-bit hash of the genotype (equal genotypes have equal hashes,
+	 * and different ones almost surely different hashes). It is calculated in
+	 * O(numWords) only if the genotype changed by other means than the bit
+	 * setting methods of this class since the last call.
+	 */
+	public long getHash() {
+		if (!hashValid) {
+			long newHash = 0;
+			for (int i = 0; i < words.length; i++) {
+				newHash ^= wordHash(i, words[i]);
+			}
+			hash = newHash;
+			hashValid = true;
+		}
+		return hash;
+	}
+
+	/**
+	 * Has to be called after the words of the genotype are changed directly
+	 * (through {@link #getWords()}), so the hash gets recalculated. It also
+	 * discards the {@link #getEvaluationState()}.
+	 */
+	public void invalidateHash() {
+		hashValid = false;
+		evaluationStateValid = false;
+	}
+
+	/**
+	 * @return the partial results of the last evaluation (their meaning is up
+	 *         to the {@link erozic.optimisation.utils.BinaryUtil} that put them
+	 *         there), or null if there are none or they were discarded; bits
+	 *         flipped since the evaluation are NOT accounted for in them
+	 */
+	public double[] getEvaluationState() {
+		return evaluationStateValid ? evaluationState : null;
+	}
+
+	/**
+	 * Discards the {@link #getEvaluationState()}, e.g. when the fitness is set
+	 * without evaluating the genotype.
+	 */
+	public void discardEvaluationState() {
+		evaluationStateValid = false;
+	}
+
+	/**
+	 * Returns an array of the given length for the partial results of an
+	 * evaluation, reusing the previous one if possible, and marks it as valid.
+	 */
+	public double[] prepareEvaluationState(int length) {
+		if (evaluationState == null || evaluationState.length != length)
+			evaluationState = new double[length];
+		evaluationStateValid = true;
+		return evaluationState;
+	}
+
+	/**
+	 * The hash of a word at the given index, mixed with the finaliser of the
+	 * SplitMix64 generator.
+	 */
+	private static long wordHash(int index, long word) {
+		long key = word + (index + 1) * 0x9e3779b97f4a7c15L;
+		key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+		key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+		return key ^ (key >>> 31);
+	}
+
 	public void setFitness(double fitness) {
 		this.fitness = fitness;
 	}
-	
+
 	/**
 	 * Copies the values and sets the fitness from "other".
 	 */
 	public void makeACloneOf(Solution other) {
-		
+
 		if (!(other instanceof BinarySolution)) {
 			throw new RuntimeException(other.getClass() + " is not a BinarySolution!");
 		}
-		
-		System.arraycopy(((BinarySolution) other).genotype, 0, genotype, 0, genotype.length);
-		this.fitness = ((BinarySolution) other).fitness;
-	} 
+
+		BinarySolution otherSolution = (BinarySolution) other;
+		System.arraycopy(otherSolution.words, 0, words, 0, words.length);
+		this.hash = otherSolution.hash;
+		this.hashValid = otherSolution.hashValid;
+		this.fitness = otherSolution.fitness;
+
+		if (otherSolution.evaluationStateValid) {
+			double[] state = prepareEvaluationState(otherSolution.evaluationState.length);
+			System.arraycopy(otherSolution.evaluationState, 0, state, 0, state.length);
+		} else {
+			evaluationStateValid = false;
+		}
+	}
 
 	/**
-	 * Compares the individuals' genotype byte by byte.
+	 * Compares the individuals' genotypes word by word (after comparing their
+	 * hashes).
 	 */
 	@Override
 	public boolean equals(Object obj) {
 		if (!(obj instanceof BinarySolution))
 			return false;
 
-		// TODO this is highly non-optimal, should make a better representation
-		// of the byte array and store it in setGenotype, then use that for
-		// comparison.
+		BinarySolution other = (BinarySolution) obj;
+		return numBits == other.numBits && getHash() == other.getHash() && Arrays.equals(words, other.words);
+	}
 
-		for (int i = 0; i < genotype.length; i++) {
-			if (((BinarySolution) obj).genotype[i] != this.genotype[i])
-				return false;
-		}
-		return true;
+	/**
+	 * Consistent with {@link #equals(Object)}, derived from {@link #getHash()}.
+	 */
+	@Override
+	public int hashCode() {
+		long hash = getHash();
+		return (int) (hash ^ (hash >>> 32));
 	}
-	
+
 	/**
 	 * Returns the genotype and fitness in a readable format.
-	 * 
+	 *
 	 * {@inheritDoc}}
 	 */
 	@Override
@@ -80,8 +250,8 @@ public class BinarySolution extends Solution {
 
 		StringBuilder str = new StringBuilder("[ genotype: ");
 
-		for (int i = 0; i < genotype.length; i++)
-			str.append(genotype[i]);
+		for (int i = 0; i < numBits; i++)
+			str.append(getBit(i));
 
 		str.append(" ; fitness: " + fitness + " ]");
 
@@ -0,0 +1,274 @@
+package erozic.optimisation.solutions;
+
+/**
+ * An array-based representation of a TSP tour which, besides the sequence of
+ * towns (the path), keeps the inverse index (town -> position in the path) so
+ * that the neighbours of a town in the tour and the relative order of towns can
+ * be found in O(1).
+ *
+ * The path array is held BY REFERENCE (e.g. the path of a {@link TSPSolution})
+ * and all the moves are done in place, keeping the positions consistent. Since
+ * a tour is a cycle, a reversal of a segment of the path is done on the shorter
+ * side: reversing the complementary segment instead gives the same cycle, only
+ * traversed in the opposite direction. That is why the users of this class
+ * should not assume the direction of the tour is preserved after
+ * {@link #reverse(int, int)} or {@link #make2OptMove(int, int, int, int)}.
+ *
+ * The tour also keeps a {@link #hash} of itself which doesn't depend on the
+ * starting town or the direction, i.e. all paths representing the same cycle
+ * have the same hash. It is the XOR of the hashes of all the (undirected) edges
+ * of the tour, so it is updated in O(1) with every move.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class TSPTour {
+
+	/** Town indices in the sequence they are to be traversed (a reference). */
+	private int[] path;
+	/** The position of every town in the {@link #path}. */
+	private int[] positions;
+	/** The number of towns (a convenience) */
+	private int numTowns;
+	/** The XOR of the {@link #edgeHash(int, int)} of all the edges */
+	private long hash;
+
+	/**
+	 * Creates an empty tour for the given number of towns; a path has to be set
+	 * with {@link #setPath(int[])} before it can be used.
+	 */
+	public TSPTour(int numTowns) {
+		this.numTowns = numTowns;
+		this.positions = new int[numTowns];
+	}
+
+	/**
+	 * Creates a tour around the given path (by reference).
+	 */
+	public TSPTour(int[] path) {
+		this(path.length);
+		setPath(path);
+	}
+
+	/**
+	 * Sets the path this tour works on BY REFERENCE and rebuilds the
+	 * {@link #positions} index and the {@link #hash}, which is O(n).
+	 */
+	public void setPath(int[] path) {
+		setPath(path, hash(path));
+	}
+
+	/**
+	 * Sets the path this tour works on BY REFERENCE and rebuilds the
+	 * {@link #positions} index, but takes the given (already known) hash of the
+	 * path.
+	 */
+	public void setPath(int[] path, long hash) {
+		if (path.length != numTowns)
+			throw new IllegalArgumentException("The path has " + path.length + " towns instead of " + numTowns + "!");
+		this.path = path;
+		this.hash = hash;
+		for (int i = 0; i < numTowns; i++) {
+			positions[path[i]] = i;
+		}
+	}
+
+	public int[] getPath() {
+		return path;
+	}
+
+	public int getNumTowns() {
+		return numTowns;
+	}
+
+	/**
+	 * @return the hash of this tour (the same for all paths representing the
+	 *         same cycle)
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * @return the town at the given position in the path
+	 */
+	public int town(int position) {
+		return path[position];
+	}
+
+	/**
+	 * @return the position of the given town in the path
+	 */
+	public int position(int town) {
+		return positions[town];
+	}
+
+	/**
+	 * @return the town that comes after the given one in the tour
+	 */
+	public int next(int town) {
+		int position = positions[town] + 1;
+		return path[position == numTowns ? 0 : position];
+	}
+
+	/**
+	 * @return the town that comes before the given one in the tour
+	 */
+	public int prev(int town) {
+		int position = positions[town] - 1;
+		return path[position < 0 ? numTowns - 1 : position];
+	}
+
+	/**
+	 * @return true if, going forward from town "a", town "b" is reached before
+	 *         (or at the same time as) town "c"
+	 */
+	public boolean between(int a, int b, int c) {
+		int pa = positions[a], pb = positions[b], pc = positions[c];
+		if (pa <= pc)
+			return pa <= pb && pb <= pc;
+		else
+			return pb >= pa || pb <= pc;
+	}
+
+	/**
+	 * Switches the towns on the given positions.
+	 */
+	public void swap(int firstPosition, int secondPosition) {
+
+		if (firstPosition == secondPosition)
+			return;
+
+		toggleEdgesAround(firstPosition, secondPosition);
+
+		int first = path[firstPosition];
+		int second = path[secondPosition];
+		path[firstPosition] = second;
+		path[secondPosition] = first;
+		positions[second] = firstPosition;
+		positions[first] = secondPosition;
+
+		toggleEdgesAround(firstPosition, secondPosition);
+	}
+
+	/**
+	 * XORs the {@link #hash} with the hashes of all the (distinct) edges that
+	 * have a town on one of the two given positions.
+	 */
+	private void toggleEdgesAround(int firstPosition, int secondPosition) {
+
+		int firstBefore = (firstPosition == 0) ? numTowns - 1 : firstPosition - 1;
+		int secondBefore = (secondPosition == 0) ? numTowns - 1 : secondPosition - 1;
+
+		// an edge is identified by the position of its first town
+		toggleEdge(firstBefore);
+		toggleEdge(firstPosition);
+		if (secondBefore != firstPosition && secondBefore != firstBefore)
+			toggleEdge(secondBefore);
+		if (secondPosition != firstBefore)
+			toggleEdge(secondPosition);
+	}
+
+	/**
+	 * XORs the {@link #hash} with the hash of the edge from the given position
+	 * to the next one.
+	 */
+	private void toggleEdge(int position) {
+		int nextPosition = position + 1;
+		hash ^= edgeHash(path[position], path[nextPosition == numTowns ? 0 : nextPosition]);
+	}
+
+	/**
+	 * Reverses the part of the tour from the first to the second position
+	 * (inclusive, going forward and wrapping around the end of the path if
+	 * firstPosition > secondPosition). If the complementary part of the tour is
+	 * shorter, that one is reversed instead, which results in the same cycle
+	 * but with the opposite direction. Either way at most n/2 towns are moved.
+	 */
+	public void reverse(int firstPosition, int secondPosition) {
+
+		int length = secondPosition - firstPosition;
+		if (length < 0)
+			length += numTowns;
+		length++;
+
+		if (length < numTowns) {
+			// the edges at the ends of the segment are the only ones that change
+			int before = path[firstPosition == 0 ? numTowns - 1 : firstPosition - 1];
+			int after = path[secondPosition == numTowns - 1 ? 0 : secondPosition + 1];
+			int first = path[firstPosition];
+			int last = path[secondPosition];
+			hash ^= edgeHash(before, first) ^ edgeHash(last, after) ^ edgeHash(before, last) ^ edgeHash(first, after);
+		}
+
+		if (2 * length > numTowns) {
+			int temp = firstPosition;
+			firstPosition = secondPosition + 1;
+			secondPosition = temp - 1;
+			if (firstPosition == numTowns)
+				firstPosition = 0;
+			if (secondPosition < 0)
+				secondPosition = numTowns - 1;
+			length = numTowns - length;
+		}
+
+		for (int i = 0; i < length / 2; i++) {
+			int first = path[firstPosition];
+			int second = path[secondPosition];
+			path[firstPosition] = second;
+			positions[second] = firstPosition;
+			path[secondPosition] = first;
+			positions[first] = secondPosition;
+
+			if (++firstPosition == numTowns)
+				firstPosition = 0;
+			if (--secondPosition < 0)
+				secondPosition = numTowns - 1;
+		}
+	}
+
+	/**
+	 * Replaces the edges (a,b) and (c,d) of the tour with the edges (a,c) and
+	 * (b,d). For the result to be a tour, "b" and "d" have to be on the same side
+	 * of "a" and "c" respectively, i.e. either b = next(a) and d = next(c), or b =
+	 * prev(a) and d = prev(c).
+	 */
+	public void make2OptMove(int a, int b, int c, int d) {
+
+		if (next(a) == b) {
+			assert next(c) == d;
+			reverse(positions[b], positions[c]);
+		} else {
+			assert prev(a) == b && prev(c) == d;
+			reverse(positions[a], positions[d]);
+		}
+	}
+
+	/**
+	 * The hash of an undirected edge, i.e. edgeHash(a,b) == edgeHash(b,a). It is
+	 * like a "Zobrist" key of the edge, but calculated (with the finaliser of the
+	 * SplitMix64 generator) instead of looked up in a table of n^2 random keys.
+	 */
+	public static long edgeHash(int town1, int town2) {
+
+		long key = (town1 < town2) ? ((long) town1 << 32) | town2 : ((long) town2 << 32) | town1;
+
+		key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+		key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+		return key ^ (key >>> 31);
+	}
+
+	/**
+	 * Calculates the hash of the tour given by the path, in O(n).
+	 *
+	 * @see #getHash()
+	 */
+	public static long hash(int[] path) {
+
+		long hash = edgeHash(path[path.length - 1], path[0]);
+		for (int i = 1; i < path.length; i++) {
+			hash ^= edgeHash(path[i - 1], path[i]);
+		}
+		return hash;
+	}
+}
@@ -1,5 +1,6 @@
 package erozic.optimisation.utils;
 
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -9,6 +10,13 @@ import erozic.optimisation.solutions.BinarySolution;
  * A class that keeps all data necessary to create, evaluate and manage
  * {@link BinarySolution} objects.
  * 
+ * The evaluation state of an individual (see
+ * {@link BinarySolution#getEvaluationState()}) belongs to the re-evaluation
+ * after bit flips ({@link #evaluate(BinarySolution, int[], int)}): only it
+ * keeps partial results there, for the next re-evaluation of the individual.
+ * The other evaluations (of a single individual or of many at once) discard
+ * the evaluation state of the individual.
+ * 
  * @author Eugen Rožić
  * @version 0.1
  *
@@ -21,6 +29,53 @@ public abstract class BinaryUtil implements SolutionUtil<BinarySolution> {
 		return numBits;
 	}
 	
+	/**
+	 * Re-evaluates the given individual after the bits at the first numFlipped
+	 * of the given (different) positions were flipped (e.g. by a
+	 * {@link erozic.optimisation.algorithms.operators.GeometricBitFlipMutation},
+	 * see its flipped positions), when it hadn't changed otherwise since it was
+	 * last evaluated by this util.
+	 * 
+	 * This implementation just evaluates it all over again; the ones that keep
+	 * partial results in the {@link BinarySolution#getEvaluationState()}
+	 * update only what the flips changed, so the cost depends on the number of
+	 * flips instead of the length of the genotype (if the individual has no
+	 * evaluation state yet, e.g. after a crossover, they evaluate it all over
+	 * again and keep one). It pays off where the children are mutated copies
+	 * of their parents, which they get the evaluation state from (see e.g. the
+	 * mutation-only
+	 * {@link erozic.optimisation.algorithms.metaheuristics.GenerationEliteBinaryGA}).
+	 * 
+	 * @return The reference to the given individual, for convenience
+	 */
+	public BinarySolution evaluate(BinarySolution individual, int[] flippedPositions, int numFlipped) {
+		
+		return evaluate(individual);
+	}
+	
+	/**
+	 * Evaluates the individuals in the given list from "from" (inclusive) to
+	 * "to" (exclusive), e.g. all the children of a generation.
+	 * 
+	 * This implementation evaluates them one by one; the ones that can
+	 * evaluate a whole population at once do that.
+	 */
+	public void evaluate(List<BinarySolution> individuals, int from, int to) {
+		
+		for (int i = from; i < to; i++) {
+			evaluate(individuals.get(i));
+		}
+	}
+	
+	/**
+	 * @return A new BinarySolution with all bits 0, NOT evaluated.
+	 */
+	@Override
+	public BinarySolution newSolution() {
+		
+		return new BinarySolution(numBits);
+	}
+	
 	@Override
 	public BinarySolution generateRandom() {
 		
@@ -28,13 +83,13 @@ public abstract class BinaryUtil implements SolutionUtil<BinarySolution> {
 		
 		BinarySolution newSolution = new BinarySolution(numBits);
 		
-		for (int i = 0; i < numBits; i++) {
-			if (random.nextBoolean()) {
-				newSolution.getGenotype()[i] = 1;
-			} else {
-				newSolution.getGenotype()[i] = 0;
-			}
+		long[] words = newSolution.getWords();
+		for (int i = 0; i < words.length; i++) {
+			words[i] = random.nextLong();
 		}
+		words[words.length - 1] &= BinarySolution.lastWordMask(numBits);
+		newSolution.invalidateHash();
+		
 		return evaluate(newSolution);
 	}
 
@@ -1,6 +1,10 @@
 package erozic.optimisation.utils;
 
+import java.util.List;
+
+import erozic.optimisation.functions.BatchFunction;
 import erozic.optimisation.functions.Function;
+import erozic.optimisation.functions.SeparableFunction;
 import erozic.optimisation.solutions.BinarySolution;
 
 /**
@@ -8,6 +12,22 @@ import erozic.optimisation.solutions.BinarySolution;
  * {@link BinarySolution} objects with regard to finding an extremum of
  * a function.
  * 
+ * Every dimension is encoded by {@link #n} consecutive bits of the genotype,
+ * the first one being the most significant, either as a plain binary number
+ * or as a (reflected binary) Gray code, in which neighbouring values differ in
+ * a single bit. The bits of a dimension are read from the packed words of the
+ * genotype all at once and turned into a value with a precomputed
+ * {@link #scale}.
+ * 
+ * The re-evaluation after bit flips keeps the decoded values (and the terms
+ * of a {@link SeparableFunction} and their sum) in the evaluation state of an
+ * individual, so after some more bit flips only the dimensions containing
+ * them are decoded (and their terms calculated) again. The other evaluations
+ * don't keep anything in the individual.
+ * 
+ * If the function is a {@link BatchFunction} a whole population can be
+ * evaluated at once (see {@link #evaluate(List, int, int)}).
+ * 
  * @author Eugen Rožić
  * @version 0.1
  *
@@ -30,6 +50,22 @@ public class BinaryVectorUtil extends BinaryUtil {
 	 * {@link BinaryVectorUtil#precision}.
 	 */
 	private int n;
+	/** The distance between two neighbouring encodable values */
+	private double scale;
+	/** Whether the dimensions are encoded with a Gray code */
+	private boolean grayCode;
+	
+	/** The {@link #function} if it is separable, null otherwise */
+	private SeparableFunction separableFunction;
+	/** The {@link #function} if it can evaluate a population at once, null otherwise */
+	private BatchFunction batchFunction;
+	
+	/** The decoded values of an individual evaluated on its own, of every thread */
+	private ThreadLocal<double[]> decodedValues;
+	/** The decoded values of the population evaluated at once, of every thread (grown as needed) */
+	private ThreadLocal<double[]> batchValues = ThreadLocal.withInitial(() -> new double[0]);
+	/** The fitnesses of the population evaluated at once, of every thread (grown as needed) */
+	private ThreadLocal<double[]> batchFitnesses = ThreadLocal.withInitial(() -> new double[0]);
 	
 	/**
 	 * Instantiates a {@link #BinaryVectorUtil(Function, int, double, double, double)} with
@@ -52,37 +88,115 @@ public class BinaryVectorUtil extends BinaryUtil {
 	 *            The absolute value of discretisation of the domain
 	 */
 	public BinaryVectorUtil(Function function, int dimensions, double minValue, double maxValue, double precision) {
+		this(function, dimensions, minValue, maxValue, precision, false);
+	}
+
+	/**
+	 * @param function
+	 *            The Function to find the extremum of
+	 * @param dimensions
+	 *            The dimensionality of the domain
+	 * @param minValue
+	 *            The lower bound of the domain in all dimensions
+	 * @param maxValue
+	 *            The upper bound of the domain in all dimensions
+	 * @param precision
+	 *            The absolute value of discretisation of the domain
+	 * @param grayCode
+	 *            Whether the dimensions are encoded with a Gray code instead of
+	 *            as plain binary numbers
+	 */
+	public BinaryVectorUtil(Function function, int dimensions, double minValue, double maxValue, double precision,
+			boolean grayCode) {
 		this.function = function;
+		if (function instanceof SeparableFunction)
+			this.separableFunction = (SeparableFunction) function;
+		if (function instanceof BatchFunction)
+			this.batchFunction = (BatchFunction) function;
 		this.dimensions = dimensions;
 		this.minValue = minValue;
 		this.maxValue = maxValue;
+		this.grayCode = grayCode;
 
 		this.n = (int) Math.ceil(Math.log((maxValue - minValue) / precision) / Math.log(2));
+		if (n < 1 || n > 62)
+			throw new IllegalArgumentException("Can't encode a dimension with " + n + " bits (the precision "
+					+ precision + " is too coarse or too fine)!");
 
+		this.scale = (maxValue - minValue) / ((1L << n) - 1);
 		this.numBits = n * dimensions;
+		
+		this.decodedValues = ThreadLocal.withInitial(() -> new double[dimensions]);
 	}
 	
 	public int getDimensions() {
 		return dimensions;
 	}
+	
+	public boolean isGrayCode() {
+		return grayCode;
+	}
 
 	/**
 	 * Decodes the genotype of a {@link BinarySolution}
-	 * to an array of doubles with {@link BinaryVectorUtil#dimensions} elements.
+	 * to a new array of doubles with {@link BinaryVectorUtil#dimensions} elements.
 	 */
 	public double[] decode(BinarySolution individual) {
+		
+		return decode(individual, new double[dimensions]);
+	}
 
-		double[] values = new double[dimensions];
+	/**
+	 * Decodes the genotype of a {@link BinarySolution} into the given array
+	 * (of at least {@link BinaryVectorUtil#dimensions} elements).
+	 * 
+	 * @return The reference to the given array, for convenience
+	 */
+	public double[] decode(BinarySolution individual, double[] values) {
 
+		long[] words = individual.getWords();
+		
 		for (int i = 0; i < dimensions; i++) {
-			for (int j = 0; j < n; j++) {
-				values[i] += individual.getGenotype()[j + i * n] * Math.pow(2, n - 1 - j);
-			}
-			values[i] = minValue + (values[i] / (Math.pow(2, n) - 1)) * (maxValue - minValue);
+			values[i] = decodeDimension(words, i);
 		}
 		return values;
 	}
 	
+	/**
+	 * Decodes the value of the i-th dimension from the given genotype words.
+	 */
+	private double decodeDimension(long[] words, int i) {
+		
+		int position = i * n;
+		int word = position >>> 6;
+		int offset = position & 63;
+		long bits = words[word] >>> offset;
+		if (offset + n > 64)
+			bits |= words[word + 1] << (64 - offset);
+		
+		// the first bit of the dimension is the lowest one in the word, but the most significant one
+		long value = Long.reverse(bits & ((1L << n) - 1)) >>> (64 - n);
+		if (grayCode)
+			value = fromGrayCode(value);
+		
+		return minValue + value * scale;
+	}
+	
+	/**
+	 * @return the number whose (reflected binary) Gray code is the given one
+	 */
+	private static long fromGrayCode(long gray) {
+		
+		// every bit is the XOR of itself and all the more significant bits of the code
+		gray ^= gray >>> 1;
+		gray ^= gray >>> 2;
+		gray ^= gray >>> 4;
+		gray ^= gray >>> 8;
+		gray ^= gray >>> 16;
+		gray ^= gray >>> 32;
+		return gray;
+	}
+	
 	/**
 	 * Claculates and sets the fitness of the given individual with respect to
 	 * finding the extremum of the {@link #function}.
@@ -91,8 +205,148 @@ public class BinaryVectorUtil extends BinaryUtil {
 	 */
 	public BinarySolution evaluate(BinarySolution individual) {
 		
-		individual.setFitness(function.fitness(decode(individual)));
+		individual.discardEvaluationState();
+		
+		if (separableFunction == null) {
+			double[] values = decode(individual, decodedValues.get());
+			individual.setFitness(function.fitness(values));
+			return individual;
+		}
+		
+		long[] words = individual.getWords();
+		double sum = 0;
+		for (int i = 0; i < dimensions; i++) {
+			sum += separableFunction.term(decodeDimension(words, i));
+		}
+		individual.setFitness(separableFunction.fitnessOfSum(sum, dimensions));
 		
 		return individual;
 	}
+	
+	/**
+	 * The same as {@link #evaluate(BinarySolution)}, but the decoded values
+	 * (and the terms and their sum) are kept in the evaluation state of the
+	 * individual.
+	 */
+	private BinarySolution evaluateKeepingState(BinarySolution individual) {
+		
+		if (separableFunction == null) {
+			double[] values = decode(individual, individual.prepareEvaluationState(dimensions));
+			individual.setFitness(function.fitness(values));
+			return individual;
+		}
+		
+		// the values, then their terms, then the sum of the terms and the number of terms changed since it was summed
+		double[] state = decode(individual, individual.prepareEvaluationState(2 * dimensions + 2));
+		for (int i = 0; i < dimensions; i++) {
+			state[dimensions + i] = separableFunction.term(state[i]);
+		}
+		individual.setFitness(separableFunction.fitnessOfSum(sumTerms(state), dimensions));
+		
+		return individual;
+	}
+	
+	/**
+	 * Sums the terms in the given evaluation state all over again (in the same
+	 * order as {@link #evaluate(BinarySolution)}) and saves the sum.
+	 * 
+	 * @return the sum
+	 */
+	private double sumTerms(double[] state) {
+		
+		double sum = 0;
+		for (int i = 0; i < dimensions; i++) {
+			sum += state[dimensions + i];
+		}
+		state[2 * dimensions] = sum;
+		state[2 * dimensions + 1] = 0;
+		return sum;
+	}
+	
+	/**
+	 * Decodes again only the dimensions containing the flipped bits, and if
+	 * the {@link #function} is separable calculates only their terms again,
+	 * see {@link BinaryUtil#evaluate(BinarySolution, int[], int)}.
+	 * 
+	 * The sum of the terms is updated by the differences of the changed ones,
+	 * which accumulates rounding errors, so after {@link #dimensions} changed
+	 * terms it is summed all over again (which keeps the cost per flip O(1)).
+	 */
+	@Override
+	public BinarySolution evaluate(BinarySolution individual, int[] flippedPositions, int numFlipped) {
+		
+		double[] state = individual.getEvaluationState();
+		if (state == null)
+			return evaluateKeepingState(individual);
+		
+		long[] words = individual.getWords();
+		int lastDimension = -1;
+		
+		for (int k = 0; k < numFlipped; k++) {
+			
+			int i = flippedPositions[k] / n;
+			if (i == lastDimension)
+				continue;
+			lastDimension = i;
+			
+			state[i] = decodeDimension(words, i);
+			if (separableFunction != null) {
+				double term = separableFunction.term(state[i]);
+				state[2 * dimensions] += term - state[dimensions + i];
+				state[dimensions + i] = term;
+				state[2 * dimensions + 1]++;
+			}
+		}
+		
+		if (separableFunction != null && state[2 * dimensions + 1] >= dimensions)
+			sumTerms(state);
+		
+		if (separableFunction == null)
+			individual.setFitness(function.fitness(state));
+		else
+			individual.setFitness(separableFunction.fitnessOfSum(state[2 * dimensions], dimensions));
+		
+		return individual;
+	}
+	
+	/**
+	 * If the {@link #function} is a {@link BatchFunction} decodes all the
+	 * individuals into a single array and evaluates them at once. The arrays
+	 * are the thread's own and are reused, so they grow to the largest number
+	 * of individuals evaluated at once and nothing is allocated after that.
+	 * 
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void evaluate(List<BinarySolution> individuals, int from, int to) {
+		
+		if (batchFunction == null) {
+			super.evaluate(individuals, from, to);
+			return;
+		}
+		
+		int count = to - from;
+		double[] values = batchValues.get();
+		double[] fitnesses = batchFitnesses.get();
+		if (fitnesses.length < count) {
+			values = new double[count * dimensions];
+			fitnesses = new double[count];
+			batchValues.set(values);
+			batchFitnesses.set(fitnesses);
+		}
+		
+		for (int p = 0; p < count; p++) {
+			long[] words = individuals.get(from + p).getWords();
+			for (int i = 0; i < dimensions; i++) {
+				values[p * dimensions + i] = decodeDimension(words, i);
+			}
+		}
+		
+		batchFunction.fitnesses(values, dimensions, fitnesses, 0, count);
+		
+		for (int p = 0; p < count; p++) {
+			individuals.get(from + p).setFitness(fitnesses[p]);
+			individuals.get(from + p).discardEvaluationState();
+		}
+	}
 }
@@ -0,0 +1,302 @@
+package erozic.optimisation.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import erozic.optimisation.solutions.BinarySolution;
+
+/**
+ * A {@link BinaryUtil} that remembers the fitnesses of the genotypes evaluated
+ * by another {@link BinaryUtil} (the {@link #delegate}), so genotypes that are
+ * made again (which happens a lot on plateaus or with coarse discretisations)
+ * don't have to be evaluated again.
+ *
+ * The cache has a fixed capacity. It is divided into sets of {@link #WAYS}
+ * entries, chosen by the genotype hash ({@link BinarySolution#getHash()}); an
+ * entry holds a copy of the whole genotype, so a hit is verified by comparing
+ * the genotypes, not just the hashes. When a set is full the entry to evict is
+ * chosen by the CLOCK algorithm: the "hand" of the set goes around its entries,
+ * sparing (once) the ones that were hit since it last passed them.
+ *
+ * The sets are guarded by a fixed number of locks ({@link #NUM_LOCKS}), so
+ * threads evaluating different genotypes rarely wait for each other; the
+ * evaluations themselves are done outside of the locks.
+ *
+ * The individuals evaluated at once (see
+ * {@link #evaluate(List, int, int)}) that aren't in the cache are evaluated at
+ * once by the {@link #delegate} too, so e.g. a {@link BinaryVectorUtil} still
+ * evaluates them with its batch function.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class CachingBinaryUtil extends BinaryUtil {
+
+	/** The number of entries in a set */
+	private static final int WAYS = 4;
+	/** The number of locks guarding the sets */
+	private static final int NUM_LOCKS = 64;
+
+	/** The util that actually evaluates the individuals */
+	private BinaryUtil delegate;
+
+	private int numWords;
+	/** The number of sets - 1, the number of sets being a power of 2 */
+	private int setMask;
+
+	/** The genotype hashes of the entries */
+	private long[] hashes;
+	/** The genotypes of the entries, numWords for every entry */
+	private long[] genotypes;
+	private double[] fitnesses;
+	private boolean[] occupied;
+	/** Whether an entry was hit since the hand of its set last passed it */
+	private boolean[] referenced;
+	/** The position of the hand of every set */
+	private int[] hands;
+
+	private Object[] locks;
+
+	/** The individuals of a population evaluated at once that weren't in the cache, of every thread */
+	private ThreadLocal<List<BinarySolution>> notCached = ThreadLocal.withInitial(ArrayList::new);
+
+	private LongAdder hits = new LongAdder();
+	private LongAdder misses = new LongAdder();
+	private LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param delegate
+	 *            The util that actually evaluates the individuals
+	 * @param capacity
+	 *            The (minimum) number of genotypes to remember
+	 */
+	public CachingBinaryUtil(BinaryUtil delegate, int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("The capacity has to be positive, not " + capacity + "!");
+
+		this.delegate = delegate;
+		this.numBits = delegate.getNumBits();
+		this.numWords = BinarySolution.numWords(numBits);
+
+		int numSets = Integer.highestOneBit(Math.max((capacity + WAYS - 1) / WAYS, 1) * 2 - 1);
+		this.setMask = numSets - 1;
+
+		int numEntries = numSets * WAYS;
+		hashes = new long[numEntries];
+		genotypes = new long[numEntries * numWords];
+		fitnesses = new double[numEntries];
+		occupied = new boolean[numEntries];
+		referenced = new boolean[numEntries];
+		hands = new int[numSets];
+
+		locks = new Object[NUM_LOCKS];
+		for (int i = 0; i < NUM_LOCKS; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	public BinaryUtil getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * @return the number of genotypes the cache can hold
+	 */
+	public int getCapacity() {
+		return occupied.length;
+	}
+
+	/**
+	 * Sets the remembered fitness of the given individual, or gets it evaluated
+	 * by the {@link #delegate} (and remembers it).
+	 *
+	 * {@inheritDoc}
+	 */
+	@Override
+	public BinarySolution evaluate(BinarySolution individual) {
+
+		if (lookup(individual))
+			return individual;
+
+		delegate.evaluate(individual);
+		store(individual);
+		return individual;
+	}
+
+	/**
+	 * Sets the remembered fitness of the given individual, or gets it
+	 * re-evaluated incrementally by the {@link #delegate} (and remembers it).
+	 * A hit discards the evaluation state of the individual, so the next
+	 * re-evaluation of it (if it's not a hit) is a full one.
+	 *
+	 * {@inheritDoc}
+	 */
+	@Override
+	public BinarySolution evaluate(BinarySolution individual, int[] flippedPositions, int numFlipped) {
+
+		if (lookup(individual))
+			return individual;
+
+		delegate.evaluate(individual, flippedPositions, numFlipped);
+		store(individual);
+		return individual;
+	}
+
+	/**
+	 * Sets the remembered fitnesses of the individuals in the cache, and gets
+	 * the rest evaluated by the {@link #delegate} all at once (and remembers
+	 * them).
+	 *
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void evaluate(List<BinarySolution> individuals, int from, int to) {
+
+		List<BinarySolution> toEvaluate = notCached.get();
+		for (int i = from; i < to; i++) {
+			BinarySolution individual = individuals.get(i);
+			if (!lookup(individual))
+				toEvaluate.add(individual);
+		}
+		if (toEvaluate.isEmpty())
+			return;
+
+		try {
+			delegate.evaluate(toEvaluate, 0, toEvaluate.size());
+			for (BinarySolution individual : toEvaluate) {
+				store(individual);
+			}
+		} finally {
+			toEvaluate.clear();
+		}
+	}
+
+	/**
+	 * If the genotype of the individual is in the cache sets its fitness and
+	 * returns true.
+	 */
+	private boolean lookup(BinarySolution individual) {
+
+		long hash = individual.getHash();
+		int set = set(hash);
+
+		synchronized (locks[set & (NUM_LOCKS - 1)]) {
+			int entry = find(set, hash, individual.getWords());
+			if (entry >= 0) {
+				referenced[entry] = true;
+				individual.setFitness(fitnesses[entry]);
+				individual.discardEvaluationState();
+				hits.increment();
+				return true;
+			}
+		}
+		misses.increment();
+		return false;
+	}
+
+	/**
+	 * Puts the genotype and fitness of the individual into the cache (if some
+	 * other thread hasn't done it in the meantime), evicting an entry of its
+	 * set if necessary.
+	 */
+	private void store(BinarySolution individual) {
+
+		long hash = individual.getHash();
+		long[] words = individual.getWords();
+		int set = set(hash);
+
+		synchronized (locks[set & (NUM_LOCKS - 1)]) {
+			if (find(set, hash, words) >= 0)
+				return;
+
+			int first = set * WAYS;
+			int entry = -1;
+			for (int i = first; i < first + WAYS; i++) {
+				if (!occupied[i]) {
+					entry = i;
+					break;
+				}
+			}
+			if (entry < 0) {
+				// the CLOCK: spare the referenced entries once, evict the first one that isn't
+				int hand = hands[set];
+				while (referenced[first + hand]) {
+					referenced[first + hand] = false;
+					hand = (hand + 1) % WAYS;
+				}
+				entry = first + hand;
+				hands[set] = (hand + 1) % WAYS;
+				evictions.increment();
+			}
+
+			hashes[entry] = hash;
+			System.arraycopy(words, 0, genotypes, entry * numWords, numWords);
+			fitnesses[entry] = individual.getFitness();
+			occupied[entry] = true;
+			referenced[entry] = false;
+		}
+	}
+
+	/**
+	 * @return the index of the entry of the given set holding the given
+	 *         genotype, or -1 if there is none
+	 */
+	private int find(int set, long hash, long[] words) {
+
+		int first = set * WAYS;
+		for (int i = first; i < first + WAYS; i++) {
+			if (occupied[i] && hashes[i] == hash && sameGenotype(i, words))
+				return i;
+		}
+		return -1;
+	}
+
+	private boolean sameGenotype(int entry, long[] words) {
+
+		int offset = entry * numWords;
+		for (int w = 0; w < numWords; w++) {
+			if (genotypes[offset + w] != words[w])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the set of the given hash
+	 */
+	private int set(long hash) {
+		return (int) (hash >>> 32) & setMask;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return the fraction of the evaluations that were hits (0 if there were
+	 *         none)
+	 */
+	public double getHitRate() {
+		long hits = getHits();
+		long total = hits + getMisses();
+		return (total == 0) ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * Resets the hit, miss and eviction counters (but not the cache).
+	 */
+	public void resetStatistics() {
+		hits.reset();
+		misses.reset();
+		evictions.reset();
+	}
+}
@@ -0,0 +1,226 @@
+package erozic.optimisation.utils;
+
+/**
+ * The eigendecomposition of a symmetric real matrix, kept in a flat array
+ * (row after row): the matrix is reduced to a tridiagonal one by Householder
+ * transformations and that is diagonalised by the QL algorithm with implicit
+ * shifts (the tred2 and tql2 procedures of EISPACK, as in JAMA), in O(n^3).
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class EigenDecomposition {
+
+	private EigenDecomposition() {
+	}
+
+	/**
+	 * Decomposes the given symmetric n x n matrix in place: its columns
+	 * become the (orthonormal) eigenvectors, and the eigenvalues are put into
+	 * the given array, in the same order (which is not sorted).
+	 *
+	 * @param matrix
+	 *            the matrix, row after row (only read as symmetric)
+	 * @param eigenvalues
+	 *            an array of (at least) n elements
+	 * @param work
+	 *            a scratch array of (at least) n elements
+	 */
+	public static void decompose(double[] matrix, int n, double[] eigenvalues, double[] work) {
+
+		tridiagonalise(matrix, n, eigenvalues, work);
+		diagonalise(matrix, n, eigenvalues, work);
+	}
+
+	/**
+	 * Householder reduction to a tridiagonal matrix (tred2): the diagonal is
+	 * put into d, the subdiagonal into e (from e[1]) and the transformation
+	 * into v.
+	 */
+	private static void tridiagonalise(double[] v, int n, double[] d, double[] e) {
+
+		for (int j = 0; j < n; j++) {
+			d[j] = v[(n - 1) * n + j];
+		}
+
+		for (int i = n - 1; i > 0; i--) {
+
+			// scale to avoid under/overflow
+			double scale = 0;
+			double h = 0;
+			for (int k = 0; k < i; k++) {
+				scale += Math.abs(d[k]);
+			}
+
+			if (scale == 0) {
+				e[i] = d[i - 1];
+				for (int j = 0; j < i; j++) {
+					d[j] = v[(i - 1) * n + j];
+					v[i * n + j] = 0;
+					v[j * n + i] = 0;
+				}
+			} else {
+				// generate the Householder vector
+				for (int k = 0; k < i; k++) {
+					d[k] /= scale;
+					h += d[k] * d[k];
+				}
+				double f = d[i - 1];
+				double g = Math.sqrt(h);
+				if (f > 0) {
+					g = -g;
+				}
+				e[i] = scale * g;
+				h = h - f * g;
+				d[i - 1] = f - g;
+				for (int j = 0; j < i; j++) {
+					e[j] = 0;
+				}
+
+				// apply the similarity transformation to the remaining columns
+				for (int j = 0; j < i; j++) {
+					f = d[j];
+					v[j * n + i] = f;
+					g = e[j] + v[j * n + j] * f;
+					for (int k = j + 1; k <= i - 1; k++) {
+						g += v[k * n + j] * d[k];
+						e[k] += v[k * n + j] * f;
+					}
+					e[j] = g;
+				}
+				f = 0;
+				for (int j = 0; j < i; j++) {
+					e[j] /= h;
+					f += e[j] * d[j];
+				}
+				double hh = f / (h + h);
+				for (int j = 0; j < i; j++) {
+					e[j] -= hh * d[j];
+				}
+				for (int j = 0; j < i; j++) {
+					f = d[j];
+					g = e[j];
+					for (int k = j; k <= i - 1; k++) {
+						v[k * n + j] -= (f * e[k] + g * d[k]);
+					}
+					d[j] = v[(i - 1) * n + j];
+					v[i * n + j] = 0;
+				}
+			}
+			d[i] = h;
+		}
+
+		// accumulate the transformations
+		for (int i = 0; i < n - 1; i++) {
+			v[(n - 1) * n + i] = v[i * n + i];
+			v[i * n + i] = 1;
+			double h = d[i + 1];
+			if (h != 0) {
+				for (int k = 0; k <= i; k++) {
+					d[k] = v[k * n + i + 1] / h;
+				}
+				for (int j = 0; j <= i; j++) {
+					double g = 0;
+					for (int k = 0; k <= i; k++) {
+						g += v[k * n + i + 1] * v[k * n + j];
+					}
+					for (int k = 0; k <= i; k++) {
+						v[k * n + j] -= g * d[k];
+					}
+				}
+			}
+			for (int k = 0; k <= i; k++) {
+				v[k * n + i + 1] = 0;
+			}
+		}
+		for (int j = 0; j < n; j++) {
+			d[j] = v[(n - 1) * n + j];
+			v[(n - 1) * n + j] = 0;
+		}
+		v[(n - 1) * n + n - 1] = 1;
+		e[0] = 0;
+	}
+
+	/**
+	 * Diagonalisation of the tridiagonal matrix by the QL algorithm with
+	 * implicit shifts (tql2): the eigenvalues end up in d and the
+	 * eigenvectors in the columns of v.
+	 */
+	private static void diagonalise(double[] v, int n, double[] d, double[] e) {
+
+		for (int i = 1; i < n; i++) {
+			e[i - 1] = e[i];
+		}
+		e[n - 1] = 0;
+
+		double f = 0;
+		double tst1 = 0;
+		double eps = Math.ulp(1.0);
+
+		for (int l = 0; l < n; l++) {
+
+			// find a small subdiagonal element
+			tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+			int m = l;
+			while (m < n - 1 && Math.abs(e[m]) > eps * tst1) {
+				m++;
+			}
+
+			// if it isn't e[l] iterate until it is
+			if (m > l) {
+				do {
+					// compute the implicit shift
+					double g = d[l];
+					double p = (d[l + 1] - g) / (2 * e[l]);
+					double r = Math.hypot(p, 1);
+					if (p < 0) {
+						r = -r;
+					}
+					d[l] = e[l] / (p + r);
+					d[l + 1] = e[l] * (p + r);
+					double dl1 = d[l + 1];
+					double h = g - d[l];
+					for (int i = l + 2; i < n; i++) {
+						d[i] -= h;
+					}
+					f += h;
+
+					// the implicit QL transformation
+					p = d[m];
+					double c = 1;
+					double c2 = c;
+					double c3 = c;
+					double el1 = e[l + 1];
+					double s = 0;
+					double s2 = 0;
+					for (int i = m - 1; i >= l; i--) {
+						c3 = c2;
+						c2 = c;
+						s2 = s;
+						g = c * e[i];
+						h = c * p;
+						r = Math.hypot(p, e[i]);
+						e[i + 1] = s * r;
+						s = e[i] / r;
+						c = p / r;
+						p = c * d[i] - s * g;
+						d[i + 1] = h + s * (c * g + s * d[i]);
+
+						// accumulate the transformation
+						for (int k = 0; k < n; k++) {
+							h = v[k * n + i + 1];
+							v[k * n + i + 1] = s * v[k * n + i] + c * h;
+							v[k * n + i] = c * v[k * n + i] - s * h;
+						}
+					}
+					p = -s * s2 * c3 * el1 * e[l] / dl1;
+					e[l] = s * p;
+					d[l] = c * p;
+
+				} while (Math.abs(e[l]) > eps * tst1);
+			}
+			d[l] += f;
+			e[l] = 0;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package erozic.optimisation.utils;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive long values (e.g. hashes of solutions) implemented as an
+ * open-addressing hash table with linear probing, so there is no boxing and no
+ * allocation except when the table has to grow.
+ *
+ * Clearing the set is O(1): every slot is stamped with the "generation" in which
+ * it was filled and only the slots of the current generation are considered
+ * occupied. That makes it appropriate for sets that are refilled in every step
+ * of an algorithm.
+ *
+ * It is NOT thread-safe for concurrent modification, but concurrent calls of
+ * {@link #contains(long)} are safe.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class LongHashSet {
+
+	private long[] keys;
+	/** The generation in which a slot was filled */
+	private int[] stamps;
+	/** The current generation, slots with other stamps are empty */
+	private int generation = 1;
+	/** keys.length - 1, keys.length being a power of 2 */
+	private int mask;
+	private int size;
+
+	/**
+	 * Creates a set that can hold the given number of values without growing.
+	 */
+	public LongHashSet(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(2 * expectedSize, 8) - 1) << 1;
+		keys = new long[capacity];
+		stamps = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if the given value is in the set
+	 */
+	public boolean contains(long value) {
+
+		for (int slot = slot(value); stamps[slot] == generation; slot = (slot + 1) & mask) {
+			if (keys[slot] == value)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the given value to the set.
+	 *
+	 * @return true if the value was added, false if it was already in the set
+	 */
+	public boolean add(long value) {
+
+		int slot = slot(value);
+		for (; stamps[slot] == generation; slot = (slot + 1) & mask) {
+			if (keys[slot] == value)
+				return false;
+		}
+		keys[slot] = value;
+		stamps[slot] = generation;
+
+		if (++size > keys.length / 2) {
+			grow();
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all the values from the set, in O(1).
+	 */
+	public void clear() {
+		size = 0;
+		if (++generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamps, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * The starting slot for a value; the bits are mixed so values that differ
+	 * only in their higher bits don't collide.
+	 */
+	private int slot(long value) {
+		long mixed = value * 0x9e3779b97f4a7c15L;
+		return (int) (mixed ^ (mixed >>> 32)) & mask;
+	}
+
+	/**
+	 * Doubles the table and re-inserts all the values of the current generation.
+	 */
+	private void grow() {
+
+		long[] oldKeys = keys;
+		int[] oldStamps = stamps;
+		int oldGeneration = generation;
+
+		keys = new long[2 * oldKeys.length];
+		stamps = new int[2 * oldKeys.length];
+		mask = keys.length - 1;
+		generation = 1;
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldStamps[i] == oldGeneration) {
+				int slot = slot(oldKeys[i]);
+				while (stamps[slot] == generation) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				stamps[slot] = generation;
+			}
+		}
+	}
+}
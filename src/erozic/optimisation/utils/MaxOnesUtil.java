@@ -6,6 +6,10 @@ import erozic.optimisation.solutions.BinarySolution;
  * A class that keeps all data necessary to create, evaluate and manage
  * {@link BinarySolution} objects with regard to solving the max-ones
  * problem given with a specific fitness function ({@link #evaluate(BinarySolution)}.
+ * 
+ * The re-evaluation after bit flips keeps the number of ones in the
+ * evaluation state of an individual, so it can be re-evaluated after some
+ * more bit flips by just counting the flips.
  *  
  * @author Eugen Rožić
  * @version 0.1
@@ -32,12 +36,48 @@ public class MaxOnesUtil extends BinaryUtil {
 	 */
 	public BinarySolution evaluate(BinarySolution individual) {
 		
-		int k = 0;
-		for (int i = 0; i < numBits; i++) {
-			if (individual.getGenotype()[i] == 1) {
-				k++;
+		individual.discardEvaluationState();
+		
+		return setFitness(individual, countOnes(individual));
+	}
+	
+	/**
+	 * Updates the number of ones of the individual by the flipped bits, see
+	 * {@link BinaryUtil#evaluate(BinarySolution, int[], int)}.
+	 */
+	@Override
+	public BinarySolution evaluate(BinarySolution individual, int[] flippedPositions, int numFlipped) {
+		
+		double[] state = individual.getEvaluationState();
+		
+		int k;
+		if (state == null) {
+			k = countOnes(individual);
+		} else {
+			k = (int) state[0];
+			for (int i = 0; i < numFlipped; i++) {
+				// the bits are already flipped, so a 1 was a 0 before
+				k += 2 * individual.getBit(flippedPositions[i]) - 1;
 			}
 		}
+		individual.prepareEvaluationState(1)[0] = k;
+		
+		return setFitness(individual, k);
+	}
+	
+	private static int countOnes(BinarySolution individual) {
+		
+		int k = 0;
+		for (long word : individual.getWords()) {
+			k += Long.bitCount(word);
+		}
+		return k;
+	}
+	
+	/**
+	 * Sets the fitness of the individual with k ones.
+	 */
+	private BinarySolution setFitness(BinarySolution individual, int k) {
 
 		if (k <= (0.8 * numBits)) {
 			individual.setFitness((double) k / numBits);
@@ -24,4 +24,18 @@ public interface SolutionUtil<T extends Solution> {
 	 * @return A new, random and evaluated Solution.
 	 */
 	public T generateRandom();
+	
+	/**
+	 * Used for the places of individuals that will be overwritten anyway (e.g.
+	 * the children of a generation), so its contents don't matter.
+	 * 
+	 * This implementation returns a {@link #generateRandom()} one, which is
+	 * evaluated; the ones that can make a blank solution do that instead, so
+	 * no evaluation is wasted on it.
+	 * 
+	 * @return A new Solution, not necessarily evaluated.
+	 */
+	public default T newSolution() {
+		return generateRandom();
+	}
 }
@@ -25,13 +25,22 @@ public class TSPUtil implements SolutionUtil<TSPSolution> {
 	private List<Location2D> towns;
 	/** The number of towns (a convenience) */
 	private int numTowns;
-	/** The absolute distances between towns */
-	private double[][] distances;
+	/**
+	 * The absolute distances between towns, as a flat (row-major) n x n matrix,
+	 * i.e. the distance between towns i and j is at index i*n + j
+	 */
+	private double[] distances;
 
 	/** The path that one gets using a greedy, closest neighbour algorithm */
 	private int[] greedyPath;
 	/** The absolute length of the greedy path */
 	private double greedyPathLength;
+	
+	/** The nearest neighbours of every town, closest first (calculated on demand) */
+	private int[][] neighbourLists;
+	
+	/** The Held-Karp lower bound of the optimal path length (calculated on demand) */
+	private double lowerBound = Double.NaN;
 
 	/**
 	 * Sets all the object fields to appropriate values.
@@ -77,14 +86,14 @@ public class TSPUtil implements SolutionUtil<TSPSolution> {
 
 	private void calculateAndSetDistances() {
 
-		distances = new double[towns.size()][towns.size()];
+		distances = new double[numTowns * numTowns];
 
-		for (int i = 0; i < towns.size(); i++) {
-			distances[i][i] = 0;
+		for (int i = 0; i < numTowns; i++) {
+			distances[i * numTowns + i] = 0;
 			Location2D a = towns.get(i);
-			for (int j = i + 1; j < towns.size(); j++) {
+			for (int j = i + 1; j < numTowns; j++) {
 				Location2D b = towns.get(j);
-				distances[i][j] = distances[j][i] = a.distanceTo(b);
+				distances[i * numTowns + j] = distances[j * numTowns + i] = a.distanceTo(b);
 			}
 		}
 	}
@@ -109,8 +118,8 @@ public class TSPUtil implements SolutionUtil<TSPSolution> {
 
 			for (int i = step; i < towns.size(); i++) {
 				int candidate = unvisited[i];
-				if (distances[lastTown][candidate] < shortestPath) {
-					shortestPath = distances[lastTown][candidate];
+				if (distance(lastTown, candidate) < shortestPath) {
+					shortestPath = distance(lastTown, candidate);
 					closestUnvisitedTownIndex = i;
 				}
 			}
@@ -124,8 +133,8 @@ public class TSPUtil implements SolutionUtil<TSPSolution> {
 			}
 		}
 		greedyPath[towns.size()-1] = unvisited[towns.size()-1];
-		greedyPathLength += distances[towns.size()-2][towns.size()-1];
-		greedyPathLength += distances[towns.size()-1][0];
+		greedyPathLength += distance(greedyPath[towns.size()-2], greedyPath[towns.size()-1]);
+		greedyPathLength += distance(greedyPath[towns.size()-1], greedyPath[0]);
 	}
 
 	public List<Location2D> getTowns() {
@@ -136,9 +145,74 @@ public class TSPUtil implements SolutionUtil<TSPSolution> {
 		return numTowns;
 	}
 
-	public double[][] getDistances() {
+	/**
+	 * Returns the distances between all the towns as a flat (row-major) n x n
+	 * matrix, i.e. the distance between towns i and j is at index i*n + j. It is
+	 * the actual data (not a copy), for the algorithms that iterate over it.
+	 */
+	public double[] getFlatDistances() {
 		return distances;
 	}
+	
+	/**
+	 * @return the distance between the two given towns
+	 */
+	public double distance(int town1, int town2) {
+		return distances[town1 * numTowns + town2];
+	}
+	
+	/**
+	 * Returns, for every town, the given number of its nearest neighbours (closest
+	 * first). These are the candidate lists that make local searches on large
+	 * instances feasible.<br>
+	 * The lists are calculated on the first call (in O(n^2 * size)) and kept, so
+	 * subsequent calls with the same or a smaller size are cheap.
+	 */
+	public synchronized int[][] getNeighbourLists(int size) {
+		
+		size = Math.min(size, numTowns - 1);
+		
+		if (neighbourLists == null || neighbourLists[0].length < size) {
+			calculateAndSetNeighbourLists(size);
+		}
+		if (neighbourLists[0].length == size) {
+			return neighbourLists;
+		}
+		
+		int[][] truncated = new int[numTowns][size];
+		for (int i = 0; i < numTowns; i++) {
+			System.arraycopy(neighbourLists[i], 0, truncated[i], 0, size);
+		}
+		return truncated;
+	}
+	
+	/**
+	 * Finds the "size" nearest neighbours of every town by insertion into a sorted
+	 * array of the so-far nearest ones.
+	 */
+	private void calculateAndSetNeighbourLists(int size) {
+		
+		neighbourLists = new int[numTowns][size];
+		
+		for (int i = 0; i < numTowns; i++) {
+			int[] neighbours = neighbourLists[i];
+			int row = i * numTowns;
+			int found = 0;
+			for (int j = 0; j < numTowns; j++) {
+				if (j == i)
+					continue;
+				double distance = distances[row + j];
+				if (found == size && distance >= distances[row + neighbours[size - 1]])
+					continue;
+				int k = (found < size) ? found++ : size - 1;
+				while (k > 0 && distances[row + neighbours[k - 1]] > distance) {
+					neighbours[k] = neighbours[k - 1];
+					k--;
+				}
+				neighbours[k] = j;
+			}
+		}
+	}
 
 	public double getGreedyPathLength() {
 		return greedyPathLength;
@@ -148,6 +222,170 @@ public class TSPUtil implements SolutionUtil<TSPSolution> {
 		return greedyPath;
 	}
 
+	/**
+	 * Returns a lower bound of the length of the optimal path, i.e. no path can be
+	 * shorter than this. It is calculated (on the first call) as the Held-Karp
+	 * bound, see {@link #calculateLowerBound()}.
+	 */
+	public synchronized double getLowerBound() {
+		
+		if (Double.isNaN(lowerBound)) {
+			lowerBound = calculateLowerBound();
+		}
+		return lowerBound;
+	}
+	
+	/**
+	 * Returns the optimality gap of the given solution, i.e. by how much (as a
+	 * fraction) its path length is larger than the {@link #getLowerBound()}. The
+	 * path is at most that much longer than the optimal one.
+	 */
+	public double getOptimalityGap(TSPSolution solution) {
+		
+		double lowerBound = getLowerBound();
+		return (solution.getPathLength() - lowerBound) / lowerBound;
+	}
+	
+	/**
+	 * Returns the fitness a {@link TSPSolution} has when its optimality gap is
+	 * equal to the given one, e.g. to be used as the target fitness of an
+	 * algorithm ({@link erozic.optimisation.algorithms.OptimisationAlgorithm#setTargetFitness(double)}).
+	 */
+	public double getFitnessForOptimalityGap(double gap) {
+		return -getLowerBound() * (1 + gap);
+	}
+	
+	/**
+	 * Calculates the Held-Karp lower bound by subgradient optimisation of the
+	 * minimum 1-tree (a minimum spanning tree of all the towns but one, plus the
+	 * two shortest edges of that one town). The town "penalties" (pi) are added to
+	 * the distances of all their edges, which doesn't change the optimal path, and
+	 * are adjusted in every iteration towards every town having exactly two edges
+	 * in the 1-tree (i.e. the 1-tree being a path).<br>
+	 * The step size is proportional to the difference between the greedy path
+	 * length and the current bound and gets halved when the bound stops improving.
+	 */
+	private double calculateLowerBound() {
+		
+		if (numTowns < 3) {
+			return greedyPathLength;
+		}
+		
+		System.out.print("Calculating the Held-Karp lower bound ... ");
+		
+		double[] pi = new double[numTowns];
+		int[] degrees = new int[numTowns];
+		double[] key = new double[numTowns];
+		int[] parent = new int[numTowns];
+		boolean[] inTree = new boolean[numTowns];
+		
+		double bestBound = Double.NEGATIVE_INFINITY;
+		double lambda = 2;
+		int period = Math.max(numTowns / 20, 5);
+		int sinceImprovement = 0;
+		
+		for (int iteration = 0; iteration < 100 * period && lambda > 1e-3; iteration++) {
+			
+			double bound = minimumOneTree(pi, degrees, key, parent, inTree);
+			
+			if (bound > bestBound) {
+				bestBound = bound;
+				sinceImprovement = 0;
+			} else if (++sinceImprovement >= period) {
+				lambda /= 2;
+				sinceImprovement = 0;
+			}
+			
+			double norm = 0;
+			for (int i = 0; i < numTowns; i++) {
+				norm += (degrees[i] - 2) * (degrees[i] - 2);
+			}
+			if (norm == 0) {
+				break; // the 1-tree is a path, so the bound is optimal
+			}
+			
+			double step = lambda * (greedyPathLength - bound) / norm;
+			for (int i = 0; i < numTowns; i++) {
+				pi[i] += step * (degrees[i] - 2);
+			}
+		}
+		
+		System.out.println("Done!");
+		
+		return bestBound;
+	}
+	
+	/**
+	 * Finds the minimum 1-tree with respect to the distances increased by the
+	 * given penalties (pi) using Prim's algorithm (in O(n^2)) on all but the first
+	 * town, sets the degrees of all the towns in it and returns its length
+	 * decreased by twice the sum of the penalties.
+	 */
+	private double minimumOneTree(double[] pi, int[] degrees, double[] key, int[] parent, boolean[] inTree) {
+		
+		for (int i = 0; i < numTowns; i++) {
+			degrees[i] = 0;
+			inTree[i] = false;
+			key[i] = Double.POSITIVE_INFINITY;
+		}
+		
+		double length = 0;
+		
+		// the spanning tree of towns 1..n-1
+		key[1] = 0;
+		parent[1] = -1;
+		for (int added = 1; added < numTowns; added++) {
+			int closest = -1;
+			for (int i = 1; i < numTowns; i++) {
+				if (!inTree[i] && (closest < 0 || key[i] < key[closest])) {
+					closest = i;
+				}
+			}
+			inTree[closest] = true;
+			if (parent[closest] >= 0) {
+				length += key[closest];
+				degrees[closest]++;
+				degrees[parent[closest]]++;
+			}
+			int row = closest * numTowns;
+			for (int i = 1; i < numTowns; i++) {
+				if (!inTree[i]) {
+					double cost = distances[row + i] + pi[closest] + pi[i];
+					if (cost < key[i]) {
+						key[i] = cost;
+						parent[i] = closest;
+					}
+				}
+			}
+		}
+		
+		// the two shortest edges of town 0
+		int first = -1, second = -1;
+		double firstCost = Double.POSITIVE_INFINITY, secondCost = Double.POSITIVE_INFINITY;
+		for (int i = 1; i < numTowns; i++) {
+			double cost = distances[i] + pi[0] + pi[i];
+			if (cost < firstCost) {
+				second = first;
+				secondCost = firstCost;
+				first = i;
+				firstCost = cost;
+			} else if (cost < secondCost) {
+				second = i;
+				secondCost = cost;
+			}
+		}
+		length += firstCost + secondCost;
+		degrees[0] = 2;
+		degrees[first]++;
+		degrees[second]++;
+		
+		double piSum = 0;
+		for (int i = 0; i < numTowns; i++) {
+			piSum += pi[i];
+		}
+		return length - 2 * piSum;
+	}
+
 	/**
 	 * Calculates the lenght of the ant's current path and sets it.
 	 * 
@@ -155,15 +393,26 @@ public class TSPUtil implements SolutionUtil<TSPSolution> {
 	 */
 	public TSPSolution evaluate(TSPSolution solution) {
 
+		int[] path = solution.getPath();
+		
 		double pathLength = 0;
 		for (int i = 1; i < numTowns; i++)
-			pathLength += distances[solution.getPath()[i-1]][solution.getPath()[i]];
+			pathLength += distances[path[i-1] * numTowns + path[i]];
 
-		pathLength += distances[solution.getPath()[numTowns-1]][solution.getPath()[0]];
+		pathLength += distances[path[numTowns-1] * numTowns + path[0]];
 		solution.setPathLength(pathLength);
 		return solution;
 	}
 
+	/**
+	 * @return A new {@link TSPSolution} with a path of all 0s, NOT evaluated.
+	 */
+	@Override
+	public TSPSolution newSolution() {
+		
+		return new TSPSolution(numTowns);
+	}
+
 	/**
 	 * @return A new and evaluated {@link TSPSolution} with a random path.
 	 */
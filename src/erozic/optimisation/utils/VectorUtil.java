@@ -3,6 +3,7 @@ package erozic.optimisation.utils;
 import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
+import erozic.optimisation.functions.BatchFunction;
 import erozic.optimisation.functions.Function;
 import erozic.optimisation.solutions.VectorSolution;
 
@@ -73,6 +74,40 @@ public class VectorUtil implements SolutionUtil<VectorSolution> {
 		return solution;
 	}
 	
+	/**
+	 * Evaluates a population of vectors kept in a single array, one after the
+	 * other: the vectors with indices from "from" (inclusive) to "to"
+	 * (exclusive), the one with index p being in the values from
+	 * p * {@link #dimensions}, and puts the fitness of the vector with index p
+	 * into fitnesses[p].
+	 * 
+	 * If the function is a {@link BatchFunction} it evaluates them all at once,
+	 * otherwise they are copied (one by one) into a single array which is
+	 * given to the function.
+	 */
+	public void evaluate(double[] values, double[] fitnesses, int from, int to) {
+		
+		if (function instanceof BatchFunction) {
+			((BatchFunction) function).fitnesses(values, dimensions, fitnesses, from, to);
+			return;
+		}
+		
+		double[] input = new double[dimensions];
+		for (int p = from; p < to; p++) {
+			System.arraycopy(values, p * dimensions, input, 0, dimensions);
+			fitnesses[p] = function.fitness(input);
+		}
+	}
+	
+	/**
+	 * @return A new VectorSolution with all values 0, NOT evaluated.
+	 */
+	@Override
+	public VectorSolution newSolution() {
+		
+		return new VectorSolution(dimensions);
+	}
+	
 	/**
 	 * @return A new, random and evaluated VectorSolution.
 	 */
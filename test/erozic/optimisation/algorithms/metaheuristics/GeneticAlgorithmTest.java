@@ -0,0 +1,215 @@
+package erozic.optimisation.algorithms.metaheuristics;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import erozic.optimisation.algorithms.OptimisationAlgorithm;
+import erozic.optimisation.algorithms.OptimisationAlgorithm.OptimisationAlgorithmListener;
+import erozic.optimisation.algorithms.metaheuristics.concurrent.GenerationEliteBinaryGAConcurrent;
+import erozic.optimisation.algorithms.metaheuristics.concurrent.RAPGAConcurrent;
+import erozic.optimisation.algorithms.operators.BinaryCrossover;
+import erozic.optimisation.algorithms.operators.Crossover;
+import erozic.optimisation.algorithms.operators.ElitistReplacement;
+import erozic.optimisation.algorithms.operators.GenerationalReplacement;
+import erozic.optimisation.algorithms.operators.GeometricBitFlipMutation;
+import erozic.optimisation.algorithms.operators.Replacement;
+import erozic.optimisation.algorithms.operators.TournamentSelection;
+import erozic.optimisation.solutions.BinarySolution;
+import erozic.optimisation.utils.BinaryUtil;
+import erozic.optimisation.utils.MaxOnesUtil;
+
+/**
+ * Tests for the {@link GeneticAlgorithm} with {@link BinarySolution}s (run
+ * with assertions enabled, i.e. -ea), on the max-ones problem, with all the
+ * binary crossovers (and without one, as a mutation-only GA) and both
+ * replacements, and for the {@link GenerationEliteBinaryGA} made of it (with
+ * and without the crossover) and the {@link RAPGA}, on 1 and more threads:
+ * every child is evaluated exactly once (and the places for the children
+ * aren't evaluated at all before they are made), the fitnesses of the
+ * populations are the ones of their genotypes, the best individual of a
+ * population never gets worse (both replacements, and the elitism of the
+ * RAPGA, keep it) and the plateau of the problem is reached. Only the
+ * children of the mutation-only GenerationEliteBinaryGA, which are
+ * re-evaluated from their flipped bits, keep an evaluation state. The RAPGA
+ * makes no more children than its maximum effort and its population stays
+ * between 1 and its maximum size.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class GeneticAlgorithmTest {
+
+	private static final int NUM_BITS = 100;
+	private static final int POPULATION_SIZE = 30;
+	private static final int NUM_CHILDREN = 60;
+	private static final int STEPS = 200;
+	private static final int MAX_POPULATION_SIZE = 60;
+	private static final int MAX_EFFORT = 500;
+
+	public static void main(String[] args) {
+
+		List<Crossover<BinarySolution>> crossovers = Arrays.asList(BinaryCrossover.SINGLE_POINT,
+				BinaryCrossover.TWO_POINT, BinaryCrossover.UNIFORM, null);
+
+		for (int numThreads : new int[] { 1, 4 }) {
+
+			for (Crossover<BinarySolution> crossover : crossovers) {
+				for (boolean elitist : new boolean[] { true, false }) {
+
+					CountingUtil util = new CountingUtil();
+					Replacement<BinarySolution> replacement = elitist ? new ElitistReplacement<BinarySolution>()
+							: new GenerationalReplacement<BinarySolution>(2);
+
+					GeneticAlgorithm<BinarySolution> algorithm = new GeneticAlgorithm<BinarySolution>(util,
+							new TournamentSelection<BinarySolution>(2), crossover,
+							GeometricBitFlipMutation.perThread(1.0 / NUM_BITS, NUM_BITS), replacement, POPULATION_SIZE,
+							NUM_CHILDREN, numThreads, STEPS);
+
+					check(algorithm, util, NUM_CHILDREN, false);
+				}
+			}
+
+			for (boolean mutationOnly : new boolean[] { false, true }) {
+
+				CountingUtil util = new CountingUtil();
+				GenerationEliteBinaryGA algorithm = (numThreads == 1)
+						? new GenerationEliteBinaryGA(util, POPULATION_SIZE, 2, 1.0 / NUM_BITS, STEPS)
+						: new GenerationEliteBinaryGAConcurrent(numThreads, util, POPULATION_SIZE, 2, 1.0 / NUM_BITS,
+								STEPS);
+				if (mutationOnly) {
+					algorithm.setCrossover(null);
+				}
+
+				check(algorithm, util, 2 * POPULATION_SIZE, mutationOnly);
+			}
+
+			CountingUtil util = new CountingUtil();
+			RAPGA algorithm = (numThreads == 1)
+					? new RAPGA(util, MAX_POPULATION_SIZE, 2, MAX_EFFORT, 0, 1.0 / NUM_BITS, STEPS)
+					: new RAPGAConcurrent(numThreads, util, MAX_POPULATION_SIZE, 2, MAX_EFFORT, 0, 1.0 / NUM_BITS,
+							STEPS);
+
+			checkRAPGA(algorithm, util);
+		}
+	}
+
+	/**
+	 * Runs the algorithm and checks the populations along the way and the
+	 * number of evaluations at the end.
+	 */
+	private static void check(OptimisationAlgorithm<BinarySolution> algorithm, CountingUtil util, int numChildren,
+			boolean reEvaluated) {
+
+		MaxOnesUtil reference = new MaxOnesUtil(NUM_BITS);
+		BinarySolution copy = new BinarySolution(NUM_BITS);
+		double[] bestInPopulation = { Double.NEGATIVE_INFINITY };
+		int[] withState = { 0 };
+
+		algorithm.addAlgorithmListener(new OptimisationAlgorithmListener<BinarySolution>() {
+			@Override
+			public void stateChanged(Collection<BinarySolution> population, int currentStep) {
+				assert population.size() == POPULATION_SIZE;
+				double best = Double.NEGATIVE_INFINITY;
+				withState[0] = 0;
+				for (BinarySolution individual : population) {
+					if (individual.getEvaluationState() != null)
+						withState[0]++;
+					copy.makeACloneOf(individual);
+					copy.invalidateHash();
+					assert reference.evaluate(copy).getFitness() == individual.getFitness();
+					best = Math.max(best, individual.getFitness());
+				}
+				assert best >= bestInPopulation[0];
+				bestInPopulation[0] = best;
+			}
+
+			@Override
+			public void currentBestSolutionUpdated(BinarySolution solution, int currentStep) {
+			}
+
+			@Override
+			public void finalSolutionFound(BinarySolution solution, int currentStep) {
+			}
+		});
+
+		algorithm.run();
+
+		assert util.evaluations.get() == POPULATION_SIZE + STEPS * numChildren : util.evaluations.get()
+				+ " evaluations";
+		assert algorithm.getCurrentBestSolution().getFitness() >= 0.8 : algorithm.getCurrentBestSolution();
+		assert algorithm.getCurrentBestSolution().getFitness() == bestInPopulation[0];
+		assert reEvaluated ? withState[0] > 0 : withState[0] == 0;
+	}
+
+	/**
+	 * Runs the RAPGA and checks the populations along the way and the number
+	 * of evaluations at the end.
+	 */
+	private static void checkRAPGA(RAPGA algorithm, CountingUtil util) {
+
+		MaxOnesUtil reference = new MaxOnesUtil(NUM_BITS);
+		BinarySolution copy = new BinarySolution(NUM_BITS);
+		double[] bestInPopulation = { Double.NEGATIVE_INFINITY };
+		int[] steps = { 0 };
+
+		algorithm.addAlgorithmListener(new OptimisationAlgorithmListener<BinarySolution>() {
+			@Override
+			public void stateChanged(Collection<BinarySolution> population, int currentStep) {
+				assert population.size() >= 1 && population.size() <= MAX_POPULATION_SIZE : population.size();
+				double best = Double.NEGATIVE_INFINITY;
+				for (BinarySolution individual : population) {
+					copy.makeACloneOf(individual);
+					copy.invalidateHash();
+					assert reference.evaluate(copy).getFitness() == individual.getFitness();
+					best = Math.max(best, individual.getFitness());
+				}
+				assert best >= bestInPopulation[0];
+				bestInPopulation[0] = best;
+				steps[0]++;
+			}
+
+			@Override
+			public void currentBestSolutionUpdated(BinarySolution solution, int currentStep) {
+			}
+
+			@Override
+			public void finalSolutionFound(BinarySolution solution, int currentStep) {
+			}
+		});
+
+		algorithm.run();
+
+		// the effort of every generation is at least an even number of children per chunk
+		assert util.evaluations.get() <= MAX_POPULATION_SIZE / 2 + steps[0] * (MAX_EFFORT + MAX_POPULATION_SIZE)
+				: util.evaluations.get() + " evaluations in " + steps[0] + " steps";
+		assert algorithm.getCurrentBestSolution().getFitness() >= 0.8 : algorithm.getCurrentBestSolution();
+		assert algorithm.getCurrentBestSolution().getFitness() == bestInPopulation[0];
+	}
+
+	/**
+	 * Counts the evaluations of the max-ones problem.
+	 */
+	private static class CountingUtil extends BinaryUtil {
+
+		private MaxOnesUtil delegate = new MaxOnesUtil(NUM_BITS);
+		private AtomicInteger evaluations = new AtomicInteger();
+
+		CountingUtil() {
+			this.numBits = NUM_BITS;
+		}
+
+		@Override
+		public BinarySolution evaluate(BinarySolution individual) {
+			evaluations.incrementAndGet();
+			return delegate.evaluate(individual);
+		}
+
+		@Override
+		public BinarySolution evaluate(BinarySolution individual, int[] flippedPositions, int numFlipped) {
+			evaluations.incrementAndGet();
+			return delegate.evaluate(individual, flippedPositions, numFlipped);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package erozic.optimisation.algorithms.operators;
+
+import java.util.Random;
+
+/**
+ * Tests for the Topology implementations (run with assertions enabled, i.e.
+ * -ea): the bests found for the whole swarm at once have to be the same as
+ * the ones found particle by particle, and the ones of the ring the same as
+ * the ones of a plain scan of the neighbourhood.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class TopologyTest {
+
+	public static void main(String[] args) {
+
+		Random random = new Random(42);
+
+		for (int swarmSize : new int[] { 1, 2, 7, 20, 36 }) {
+
+			double[] bestFitnesses = new double[swarmSize];
+			int[] localBests = new int[swarmSize];
+
+			for (int radius : new int[] { 0, 1, 3, 5, 40 }) {
+				RingTopology ring = new RingTopology(radius);
+				for (int step = 0; step < 20; step++) {
+					// few different values, so there are ties
+					fill(bestFitnesses, random, step % 2 == 0 ? 3 : 1000);
+					ring.update(bestFitnesses, localBests);
+					for (int i = 0; i < swarmSize; i++) {
+						assert localBests[i] == scanRing(bestFitnesses, i, radius);
+						assert localBests[i] == ring.findLocalBest(bestFitnesses, i);
+					}
+				}
+			}
+
+			Topology[] topologies = { new GlobalTopology(), new VonNeumannTopology(), new RandomTopology(3) };
+			for (Topology topology : topologies) {
+				for (int step = 0; step < 20; step++) {
+					fill(bestFitnesses, random, step % 2 == 0 ? 3 : 1000);
+					topology.update(bestFitnesses, localBests);
+					for (int i = 0; i < swarmSize; i++) {
+						assert localBests[i] == topology.findLocalBest(bestFitnesses, i);
+						assert bestFitnesses[localBests[i]] >= bestFitnesses[i];
+					}
+				}
+			}
+		}
+
+		// a 3x4 grid
+		VonNeumannTopology grid = new VonNeumannTopology(4);
+		double[] bestFitnesses = new double[12];
+		int[] localBests = new int[12];
+		bestFitnesses[6] = 1;
+		grid.update(bestFitnesses, localBests);
+		for (int i = 0; i < 12; i++) {
+			boolean neighbour = (i == 6 || i == 2 || i == 10 || i == 5 || i == 7);
+			assert (localBests[i] == 6) == neighbour;
+		}
+
+		// the best in the swarm has to be everyone's best
+		bestFitnesses[11] = 2;
+		new GlobalTopology().update(bestFitnesses, localBests);
+		for (int i = 0; i < 12; i++) {
+			assert localBests[i] == 11;
+		}
+
+		System.out.println("All tests passed.");
+	}
+
+	private static void fill(double[] values, Random random, int numDifferent) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextInt(numDifferent);
+		}
+	}
+
+	/**
+	 * The best of the 2 * radius + 1 particles around the given one, the first
+	 * one of the equally good ones.
+	 */
+	private static int scanRing(double[] bestFitnesses, int particleIndex, int radius) {
+
+		int n = bestFitnesses.length;
+		int best = Math.floorMod(particleIndex - radius, n);
+		for (int j = 1; j <= 2 * radius; j++) {
+			int index = Math.floorMod(particleIndex - radius + j, n);
+			if (bestFitnesses[index] > bestFitnesses[best]) {
+				best = index;
+			}
+		}
+		return best;
+	}
+}
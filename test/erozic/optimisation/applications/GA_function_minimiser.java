@@ -321,20 +321,19 @@ public class GA_function_minimiser extends OptimisationAlgorithmGUI {
 		algorithm = new SteadyStateVectorGA(vectorUtil, populationSize, mutationIntensity);
 
 		SteadyStateVectorGA ga = (SteadyStateVectorGA) algorithm;
+		ga.setStateChangedInterval(populationSize);
 
 		ga.addAlgorithmListener(new OptimisationAlgorithmListener<VectorSolution>() {
 			@Override
 			public void stateChanged(Collection<VectorSolution> population, int step) {
-				if (step % populationSize == 0) {
-					double[][] points = new double[population.size()][vectorUtil.getDimensions()];
-					int i = 0;
-					for (VectorSolution individual : population) {
-						points[i++] = individual.getValues();
-					}
-					SwingUtilities.invokeLater(() -> {
-						solutionVisualisationComponent.setToDraw(points);
-					});
+				double[][] points = new double[population.size()][vectorUtil.getDimensions()];
+				int i = 0;
+				for (VectorSolution individual : population) {
+					points[i++] = individual.getValues().clone();
 				}
+				SwingUtilities.invokeLater(() -> {
+					solutionVisualisationComponent.setToDraw(points);
+				});
 			}
 			@Override
 			public void currentBestSolutionUpdated(VectorSolution solution, int step) {
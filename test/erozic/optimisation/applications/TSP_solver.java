@@ -29,6 +29,8 @@ import erozic.optimisation.algorithms.OptimisationAlgorithm;
 import erozic.optimisation.algorithms.OptimisationAlgorithm.OptimisationAlgorithmListener;
 import erozic.optimisation.algorithms.metaheuristics.AntColonySystemTSP;
 import erozic.optimisation.algorithms.metaheuristics.ClonAlgTSP;
+import erozic.optimisation.algorithms.metaheuristics.EAXGeneticAlgorithmTSP;
+import erozic.optimisation.algorithms.metaheuristics.IteratedLinKernighanTSP;
 import erozic.optimisation.applications.gui_utils.OptimisationAlgorithmGUI;
 import erozic.optimisation.applications.gui_utils.TSPVisualisation;
 import erozic.optimisation.solutions.TSPSolution;
@@ -163,6 +165,24 @@ public class TSP_solver extends OptimisationAlgorithmGUI {
 		
 		//------------------------------------------------------------------
 		
+		Action actionSelectILK = new AbstractAction(IteratedLinKernighanTSP.class.getSimpleName()) {
+			public void actionPerformed(ActionEvent e) {
+				algorithmClass = IteratedLinKernighanTSP.class;
+			}
+		};
+		actions.put("select_ilk", actionSelectILK);
+		
+		//------------------------------------------------------------------
+		
+		Action actionSelectEAX = new AbstractAction(EAXGeneticAlgorithmTSP.class.getSimpleName()) {
+			public void actionPerformed(ActionEvent e) {
+				algorithmClass = EAXGeneticAlgorithmTSP.class;
+			}
+		};
+		actions.put("select_eax", actionSelectEAX);
+		
+		//------------------------------------------------------------------
+		
 		Action actionSetParams = new AbstractAction("Set parameters") {
 			public void actionPerformed(ActionEvent e) {
 				parametersDialog.setVisible(true);	
@@ -201,9 +221,17 @@ public class TSP_solver extends OptimisationAlgorithmGUI {
 		JRadioButtonMenuItem clonAlgRadio = new JRadioButtonMenuItem(actions.get("select_ais"));
 		algorithmChoice.add(clonAlgRadio);
 		
+		JRadioButtonMenuItem ilkAlgRadio = new JRadioButtonMenuItem(actions.get("select_ilk"));
+		algorithmChoice.add(ilkAlgRadio);
+		
+		JRadioButtonMenuItem eaxAlgRadio = new JRadioButtonMenuItem(actions.get("select_eax"));
+		algorithmChoice.add(eaxAlgRadio);
+		
 		JMenu menuAlgorithm = new JMenu("Algorithm");
 		menuAlgorithm.add(antsAlgRadio);
 		menuAlgorithm.add(clonAlgRadio);
+		menuAlgorithm.add(ilkAlgRadio);
+		menuAlgorithm.add(eaxAlgRadio);
 		menuAlgorithm.addSeparator();
 		menuAlgorithm.add(new JMenuItem(actions.get("set_params")));
 		menuBar.add(menuAlgorithm);
@@ -250,6 +278,8 @@ public class TSP_solver extends OptimisationAlgorithmGUI {
 		
 		solutionVisualisationComponent.setTowns(tspUtil.getTowns());
 		solutionVisualisationComponent.setPath(tspUtil.getGreedyPath());
+		
+		System.out.println("Lower bound of the path length = " + tspUtil.getLowerBound());
 	}
 	
 	@Override
@@ -281,6 +311,22 @@ public class TSP_solver extends OptimisationAlgorithmGUI {
 			
 			algorithm = new ClonAlgTSP(tspUtil, populationSize, selectFraction, birthFraction, beta, rho);
 		
+		} else if (algorithmClass.equals(IteratedLinKernighanTSP.class)) {
+			
+			// TODO get parameters from the parametersDialog
+			int maxDepth = 5;
+			int neighbourListSize = 8;
+			
+			algorithm = new IteratedLinKernighanTSP(tspUtil, maxDepth, neighbourListSize);
+		
+		} else if (algorithmClass.equals(EAXGeneticAlgorithmTSP.class)) {
+			
+			// TODO get parameters from the parametersDialog
+			int populationSize = 100;
+			int numChildren = 30;
+			
+			algorithm = new EAXGeneticAlgorithmTSP(tspUtil, populationSize, numChildren);
+		
 		} else {
 			JOptionPane.showMessageDialog(this, "Unknown algorithm (" + algorithmClass.getSimpleName() + ") specified!",
 					"Error", JOptionPane.ERROR_MESSAGE);
@@ -298,7 +344,8 @@ public class TSP_solver extends OptimisationAlgorithmGUI {
 				SwingUtilities.invokeLater(() -> {
 					solutionVisualisationComponent.setPath(solution.getPath());
 				});
-				System.out.println(step + ". step: shortest path = " + solution.getPathLength());
+				System.out.println(step + ". step: shortest path = " + solution.getPathLength()
+						+ ", optimality gap = " + String.format("%.2f%%", 100 * tspUtil.getOptimalityGap(solution)));
 			}
 			@Override
 			public void finalSolutionFound(TSPSolution solution, int step) {
@@ -382,6 +429,9 @@ public class TSP_solver extends OptimisationAlgorithmGUI {
 		}
 		TSPUtil tspUtil = new TSPUtil(tspFile);
 		
+		// an optional optimality gap at which to stop
+		double gapThreshold = (args.length > 1) ? Double.parseDouble(args[1]) : 0;
+		
 		int colonySize = 50;
 		double alpha = 1;
 		double beta = 2;
@@ -390,11 +440,15 @@ public class TSP_solver extends OptimisationAlgorithmGUI {
 		// TODO what about a CLONALG console run ...
 
 		AntColonySystemTSP algorithm = new AntColonySystemTSP(tspUtil, colonySize, alpha, beta, rho);
+		if (gapThreshold > 0) {
+			algorithm.setTargetFitness(tspUtil.getFitnessForOptimalityGap(gapThreshold));
+		}
 		
 		algorithm.addAlgorithmListener(new OptimisationAlgorithmListener<TSPSolution>() {
 			@Override
 			public void currentBestSolutionUpdated(TSPSolution solution, int step) {
-				System.out.println("step: " + step + ", best solution length = " + solution.getPathLength());
+				System.out.println("step: " + step + ", best solution length = " + solution.getPathLength()
+						+ ", optimality gap = " + String.format("%.2f%%", 100 * tspUtil.getOptimalityGap(solution)));
 			}
 			@Override
 			public void finalSolutionFound(TSPSolution solution, int step) {
@@ -441,6 +495,7 @@ public class TSP_solver extends OptimisationAlgorithmGUI {
 
 		sb.append("\nThis program uses an Ant Colony System ACO algorithm to solve a TSP problem.\n\n");
 		sb.append("The program expects 1 argument: a path to a '.tsp' file.\n");
+		sb.append("Optionally, a 2nd argument is the optimality gap (e.g. 0.02) at which to stop.\n");
 
 		return sb.toString();
 	}
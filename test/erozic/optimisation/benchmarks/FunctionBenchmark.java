@@ -0,0 +1,148 @@
+package erozic.optimisation.benchmarks;
+
+import java.util.Random;
+
+import erozic.optimisation.functions.BatchFunction;
+import erozic.optimisation.functions.Function;
+import erozic.optimisation.functions.RastriginFunction;
+import erozic.optimisation.functions.SchwefelFunction;
+
+/**
+ * A benchmark of the evaluation of the Rastrigin and Schwefel functions in
+ * 1000 dimensions: measures the average time of an evaluation, and compares
+ * the Rastrigin function to a plain loop of Math.cos(2*PI*x) (which it was
+ * before it got its own cosine), in time and in value.
+ *
+ * The values have to be the same up to the rounding errors, which is what
+ * the assertions (run with -ea) check; they also check that the fitnesses of a
+ * whole population evaluated at once (see {@link BatchFunction}) are exactly
+ * the ones of the vectors evaluated one by one.
+ *
+ * The timings depend on the machine and its load, so they are only reported;
+ * that the Rastrigin function is faster than the plain loop is asserted only
+ * if the "assertTimings" system property is set (-DassertTimings=true).
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class FunctionBenchmark {
+
+	private static final int DIMENSIONS = 1000;
+	private static final int VECTORS = 100;
+	private static final int EVALUATIONS = 20000;
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) {
+
+		Random random = new Random(42);
+
+		double[][] rastriginInputs = randomVectors(random, -5.12, 5.12);
+		double[][] schwefelInputs = randomVectors(random, -500, 500);
+
+		Function rastrigin = new RastriginFunction(Function.MINIMISE);
+		Function schwefel = new SchwefelFunction(Function.MINIMISE);
+
+		for (double[] input : rastriginInputs) {
+			double value = rastrigin.value(input);
+			double reference = plainRastrigin(input);
+			assert Math.abs(value - reference) < 1e-15 * 10 * DIMENSIONS * 10 : value + " != " + reference;
+		}
+
+		checkBatch((BatchFunction) rastrigin, rastriginInputs);
+		checkBatch((BatchFunction) schwefel, schwefelInputs);
+
+		double nanosRastrigin = Double.POSITIVE_INFINITY;
+		double nanosPlainRastrigin = Double.POSITIVE_INFINITY;
+		double nanosSchwefel = Double.POSITIVE_INFINITY;
+		// the best of a few runs, the first ones also warm up the JIT
+		for (int run = 0; run < RUNS; run++) {
+			nanosRastrigin = Math.min(nanosRastrigin, timeFunction(rastrigin, rastriginInputs));
+			nanosPlainRastrigin = Math.min(nanosPlainRastrigin, timePlainRastrigin(rastriginInputs));
+			nanosSchwefel = Math.min(nanosSchwefel, timeFunction(schwefel, schwefelInputs));
+		}
+
+		System.out.printf("RastriginFunction, d = %d: %.1f ns per evaluation, %.2f ns per dimension%n", DIMENSIONS,
+				nanosRastrigin, nanosRastrigin / DIMENSIONS);
+		System.out.printf("plain Math.cos Rastrigin, d = %d: %.1f ns per evaluation, %.2f ns per dimension%n",
+				DIMENSIONS, nanosPlainRastrigin, nanosPlainRastrigin / DIMENSIONS);
+		System.out.printf("SchwefelFunction, d = %d: %.1f ns per evaluation, %.2f ns per dimension%n", DIMENSIONS,
+				nanosSchwefel, nanosSchwefel / DIMENSIONS);
+		System.out.printf("RastriginFunction is %.2f times faster than the plain loop%n",
+				nanosPlainRastrigin / nanosRastrigin);
+
+		if (Boolean.getBoolean("assertTimings")) {
+			assert nanosRastrigin < nanosPlainRastrigin;
+		}
+	}
+
+	private static void checkBatch(BatchFunction function, double[][] inputs) {
+
+		double[] population = new double[VECTORS * DIMENSIONS];
+		for (int p = 0; p < VECTORS; p++) {
+			System.arraycopy(inputs[p], 0, population, p * DIMENSIONS, DIMENSIONS);
+		}
+		double[] fitnesses = new double[VECTORS];
+		// the first and the last one are left out
+		function.fitnesses(population, DIMENSIONS, fitnesses, 1, VECTORS - 1);
+
+		assert fitnesses[0] == 0 && fitnesses[VECTORS - 1] == 0;
+		for (int p = 1; p < VECTORS - 1; p++) {
+			assert fitnesses[p] == function.fitness(inputs[p]);
+		}
+	}
+
+	private static double[][] randomVectors(Random random, double min, double max) {
+
+		double[][] vectors = new double[VECTORS][DIMENSIONS];
+		for (double[] vector : vectors) {
+			for (int i = 0; i < DIMENSIONS; i++) {
+				vector[i] = min + random.nextDouble() * (max - min);
+			}
+		}
+		return vectors;
+	}
+
+	/**
+	 * @return the average duration of an evaluation, in nanoseconds
+	 */
+	private static double timeFunction(Function function, double[][] inputs) {
+
+		double sum = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < EVALUATIONS; i++) {
+			sum += function.value(inputs[i % VECTORS]);
+		}
+		long nanos = System.nanoTime() - start;
+
+		// so the evaluations aren't optimised away
+		if (Double.isNaN(sum))
+			System.out.println(sum);
+		return (double) nanos / EVALUATIONS;
+	}
+
+	/**
+	 * @return the average duration of an evaluation, in nanoseconds
+	 */
+	private static double timePlainRastrigin(double[][] inputs) {
+
+		double sum = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < EVALUATIONS; i++) {
+			sum += plainRastrigin(inputs[i % VECTORS]);
+		}
+		long nanos = System.nanoTime() - start;
+
+		if (Double.isNaN(sum))
+			System.out.println(sum);
+		return (double) nanos / EVALUATIONS;
+	}
+
+	private static double plainRastrigin(double[] input) {
+
+		double value = 10 * input.length;
+		for (int i = 0; i < input.length; i++) {
+			value += input[i] * input[i] - 10 * Math.cos(2 * Math.PI * input[i]);
+		}
+		return value;
+	}
+}
@@ -0,0 +1,80 @@
+package erozic.optimisation.benchmarks;
+
+import erozic.optimisation.algorithms.metaheuristics.ParticleSwarmOptimisation;
+import erozic.optimisation.functions.Function;
+import erozic.optimisation.functions.RastriginFunction;
+import erozic.optimisation.functions.SchwefelFunction;
+import erozic.optimisation.utils.VectorUtil;
+
+/**
+ * A benchmark of the {@link ParticleSwarmOptimisation} on high-dimensional
+ * Rastrigin and Schwefel functions: measures the average time of a step for
+ * different numbers of dimensions.
+ * 
+ * A step is O(swarmSize * dimensions), so the time per step and dimension
+ * should be (roughly) the same for all of them; it grew linearly with the
+ * number of dimensions while the position update was O(dimensions^2).
+ * 
+ * The timings depend on the machine and its load, so the growth is only
+ * reported; it is asserted (run with -ea) only if the "assertTimings" system
+ * property is set (-DassertTimings=true).
+ * 
+ * @author Eugen Rožić
+ *
+ */
+public class PSOBenchmark {
+
+	private static final int SWARM_SIZE = 20;
+	private static final int STEPS = 200;
+	private static final int RUNS = 5;
+	private static final int[] DIMENSIONS = { 50, 100, 200, 500 };
+
+	public static void main(String[] args) {
+
+		Function[] functions = { new RastriginFunction(Function.MINIMISE), new SchwefelFunction(Function.MINIMISE) };
+		double[][] domains = { { -5.12, 5.12 }, { -500, 500 } };
+
+		for (int f = 0; f < functions.length; f++) {
+
+			double[] nanosPerDimension = new double[DIMENSIONS.length];
+
+			for (int i = 0; i < DIMENSIONS.length; i++) {
+
+				VectorUtil vectorUtil = new VectorUtil(functions[f], DIMENSIONS[i], domains[f][0], domains[f][1]);
+
+				// the best of a few runs, the first ones also warm up the JIT
+				double nanosPerStep = Double.POSITIVE_INFINITY;
+				for (int run = 0; run < RUNS; run++) {
+					nanosPerStep = Math.min(nanosPerStep, runPSO(vectorUtil));
+				}
+				nanosPerDimension[i] = nanosPerStep / DIMENSIONS[i];
+
+				System.out.printf("%s, d = %d: %.3f ms per step, %.1f ns per step and dimension%n",
+						functions[f].getClass().getSimpleName(), DIMENSIONS[i], nanosPerStep / 1e6,
+						nanosPerDimension[i]);
+			}
+
+			double growth = nanosPerDimension[DIMENSIONS.length - 1] / nanosPerDimension[0];
+			System.out.printf("%s: the time per dimension grew %.2f times from d = %d to d = %d%n",
+					functions[f].getClass().getSimpleName(), growth, DIMENSIONS[0], DIMENSIONS[DIMENSIONS.length - 1]);
+
+			// the O(d^2) position update made it grow about 5 times
+			if (Boolean.getBoolean("assertTimings")) {
+				assert growth < 3;
+			}
+		}
+	}
+
+	/**
+	 * @return the average duration of a step, in nanoseconds
+	 */
+	private static double runPSO(VectorUtil vectorUtil) {
+
+		ParticleSwarmOptimisation algorithm = new ParticleSwarmOptimisation(vectorUtil, SWARM_SIZE, 5, 2, 2, 0.9, 0.4,
+				50, 0.1, STEPS);
+
+		long start = System.nanoTime();
+		algorithm.run();
+		return (double) (System.nanoTime() - start) / STEPS;
+	}
+}
@@ -0,0 +1,104 @@
+package erozic.optimisation.solutions;
+
+import java.util.Random;
+
+import erozic.optimisation.utils.MaxOnesUtil;
+
+/**
+ * Tests for the BinarySolution class (run with assertions enabled, i.e. -ea).
+ * 
+ * @author Eugen Rožić
+ *
+ */
+public class BinarySolutionTest {
+
+	public static void main(String[] args) {
+
+		Random random = new Random(42);
+
+		// a number of bits that doesn't fill the last word
+		int numBits = 150;
+		assert BinarySolution.numWords(numBits) == 3;
+		assert BinarySolution.lastWordMask(numBits) == (1L << 22) - 1;
+		assert BinarySolution.lastWordMask(128) == -1L;
+
+		BinarySolution solution = new BinarySolution(numBits);
+		boolean[] expected = new boolean[numBits];
+
+		// check the bit access against a plain boolean array
+		for (int i = 0; i < 1000; i++) {
+			int index = random.nextInt(numBits);
+			if (random.nextBoolean()) {
+				solution.flipBit(index);
+				expected[index] = !expected[index];
+			} else {
+				int bit = random.nextInt(2);
+				solution.setBit(index, bit);
+				expected[index] = (bit == 1);
+			}
+		}
+		int ones = 0;
+		for (int i = 0; i < numBits; i++) {
+			assert solution.getBit(i) == (expected[i] ? 1 : 0);
+			if (expected[i])
+				ones++;
+		}
+
+		// check the unused bits of the last word stay 0
+		long[] words = solution.getWords();
+		assert (words[words.length - 1] & ~BinarySolution.lastWordMask(numBits)) == 0;
+
+		// check max-ones counts the ones by words
+		MaxOnesUtil util = new MaxOnesUtil(numBits);
+		util.evaluate(solution);
+		assert solution.getFitness() == (double) ones / numBits;
+
+		// check random solutions keep the unused bits 0 too
+		BinarySolution random1 = util.generateRandom();
+		words = random1.getWords();
+		assert (words[words.length - 1] & ~BinarySolution.lastWordMask(numBits)) == 0;
+
+		// check makeACloneOf and equals
+		BinarySolution clone = new BinarySolution(numBits);
+		clone.makeACloneOf(solution);
+		assert clone.equals(solution);
+		assert clone.getFitness() == solution.getFitness();
+		clone.flipBit(numBits - 1);
+		assert !clone.equals(solution);
+
+		// check the incrementally updated hash is the same as a recalculated one
+		for (int i = 0; i < 1000; i++) {
+			clone.flipBit(random.nextInt(numBits));
+			clone.setBit(random.nextInt(numBits), random.nextInt(2));
+			long hash = clone.getHash();
+			clone.invalidateHash();
+			assert clone.getHash() == hash;
+		}
+		clone.makeACloneOf(solution);
+		assert clone.getHash() == solution.getHash();
+		assert clone.hashCode() == solution.hashCode();
+		clone.flipBit(0);
+		assert clone.getHash() != solution.getHash();
+
+		// check the delta evaluation after bit flips is the same as a full one
+		util.evaluate(clone);
+		int[] flipped = new int[3];
+		for (int i = 0; i < 1000; i++) {
+			for (int j = 0; j < flipped.length; j++) {
+				// the flipped positions have to be different
+				flipped[j] = j * (numBits / flipped.length) + random.nextInt(numBits / flipped.length);
+				clone.flipBit(flipped[j]);
+			}
+			util.evaluate(clone, flipped, flipped.length);
+			double fitness = clone.getFitness();
+			clone.invalidateHash();
+			assert clone.getEvaluationState() == null;
+			assert util.evaluate(clone).getFitness() == fitness;
+		}
+		// only the re-evaluation after bit flips keeps the state, and a clone gets a copy of it
+		assert clone.getEvaluationState() == null;
+		util.evaluate(clone, flipped, 0);
+		solution.makeACloneOf(clone);
+		assert solution.getEvaluationState()[0] == clone.getEvaluationState()[0];
+	}
+}
@@ -0,0 +1,106 @@
+package erozic.optimisation.solutions;
+
+import java.util.Random;
+
+/**
+ * Tests for the TSPTour class (run with assertions enabled, i.e. -ea).
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class TSPTourTest {
+
+	public static void main(String[] args) {
+
+		Random random = new Random(42);
+		int numTowns = 11;
+
+		int[] path = new int[numTowns];
+		for (int i = 0; i < numTowns; i++)
+			path[i] = i;
+		TSPTour tour = new TSPTour(path);
+
+		// check next, prev and between on the identity path
+		assert tour.next(numTowns - 1) == 0;
+		assert tour.prev(0) == numTowns - 1;
+		assert tour.between(2, 5, 7);
+		assert !tour.between(7, 5, 2);
+		assert tour.between(9, 0, 2);
+
+		// check a short reversal is done literally
+		tour.reverse(2, 4);
+		assert path[2] == 4 && path[3] == 3 && path[4] == 2;
+		assert positionsConsistent(tour);
+
+		// check a long reversal gives the same set of edges as the literal one
+		int[] literal = path.clone();
+		for (int i = 0; i < (9 - 1 + 1) / 2; i++) {
+			int temp = literal[1 + i];
+			literal[1 + i] = literal[9 - i];
+			literal[9 - i] = temp;
+		}
+		tour.reverse(1, 9);
+		assert sameCycle(literal, path);
+		assert positionsConsistent(tour);
+
+		// check the hash doesn't depend on the starting town and direction
+		assert tour.getHash() == TSPTour.hash(path);
+		assert tour.getHash() == TSPTour.hash(literal);
+		int[] rotated = new int[numTowns];
+		for (int i = 0; i < numTowns; i++)
+			rotated[i] = path[(numTowns - i + 3) % numTowns];
+		assert tour.getHash() == TSPTour.hash(rotated);
+
+		// check random swaps keep the hash up to date
+		for (int move = 0; move < 1000; move++) {
+			tour.swap(random.nextInt(numTowns), random.nextInt(numTowns));
+			assert tour.getHash() == TSPTour.hash(path);
+			assert positionsConsistent(tour);
+		}
+
+		// check random 2-opt moves keep the tour a valid cycle
+		for (int move = 0; move < 1000; move++) {
+			int a = random.nextInt(numTowns);
+			int c = random.nextInt(numTowns);
+			if (a == c || tour.next(a) == c || tour.next(c) == a)
+				continue;
+			int b = tour.next(a);
+			int d = tour.next(c);
+			tour.make2OptMove(a, b, c, d);
+			assert tour.next(a) == c || tour.prev(a) == c;
+			assert tour.next(b) == d || tour.prev(b) == d;
+			assert tour.getHash() == TSPTour.hash(path);
+			assert positionsConsistent(tour);
+		}
+	}
+
+	private static boolean positionsConsistent(TSPTour tour) {
+
+		for (int i = 0; i < tour.getNumTowns(); i++) {
+			if (tour.position(tour.town(i)) != i)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if the two paths represent the same cycle (regardless of
+	 *         the starting town and the direction)
+	 */
+	private static boolean sameCycle(int[] path1, int[] path2) {
+
+		int n = path1.length;
+		int[] next = new int[n];
+		int[] prev = new int[n];
+		for (int i = 0; i < n; i++) {
+			next[path1[i]] = path1[(i + 1) % n];
+			prev[path1[i]] = path1[(i + n - 1) % n];
+		}
+		for (int i = 0; i < n; i++) {
+			int following = path2[(i + 1) % n];
+			if (next[path2[i]] != following && prev[path2[i]] != following)
+				return false;
+		}
+		return true;
+	}
+}
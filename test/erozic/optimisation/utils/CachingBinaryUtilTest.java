@@ -0,0 +1,172 @@
+package erozic.optimisation.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import erozic.optimisation.functions.Function;
+import erozic.optimisation.functions.RastriginFunction;
+import erozic.optimisation.solutions.BinarySolution;
+
+/**
+ * Tests for the {@link CachingBinaryUtil} (run with assertions enabled, i.e.
+ * -ea): an equal genotype is a hit and isn't evaluated again, genotypes with
+ * the same hash but different bits never get each other's fitnesses (also
+ * when they evict each other), a population evaluated at once gets only the
+ * genotypes that aren't in the cache evaluated, at once, by the delegate, and
+ * threads evaluating the same genotypes at the same time get the right
+ * fitnesses.
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class CachingBinaryUtilTest {
+
+	private static final int DIMENSIONS = 4;
+
+	public static void main(String[] args) throws InterruptedException {
+
+		CountingUtil delegate = new CountingUtil(
+				new BinaryVectorUtil(new RastriginFunction(Function.MINIMISE), DIMENSIONS, -5.12, 5.12));
+		BinaryVectorUtil reference = new BinaryVectorUtil(new RastriginFunction(Function.MINIMISE), DIMENSIONS,
+				-5.12, 5.12);
+		int numBits = delegate.getNumBits();
+
+		// an equal genotype (in another object) is a hit
+		CachingBinaryUtil cache = new CachingBinaryUtil(delegate, 64);
+		BinarySolution first = reference.generateRandom();
+		BinarySolution equal = new BinarySolution(numBits);
+		equal.makeACloneOf(first);
+		equal.setFitness(Double.NaN);
+		cache.evaluate(first);
+		assert delegate.evaluations.get() == 1 && cache.getMisses() == 1;
+		cache.evaluate(equal);
+		assert delegate.evaluations.get() == 1 && cache.getHits() == 1;
+		assert equal.getFitness() == first.getFitness();
+
+		// genotypes with the same hash (so in the same set) but different bits, more of them than fit in a set
+		cache = new CachingBinaryUtil(delegate, 64);
+		List<BinarySolution> colliding = new ArrayList<BinarySolution>();
+		for (int i = 0; i < 10; i++) {
+			BinarySolution solution = new CollidingSolution(numBits);
+			solution.makeACloneOf(reference.generateRandom());
+			colliding.add(solution);
+		}
+		for (int round = 0; round < 3; round++) {
+			for (BinarySolution solution : colliding) {
+				solution.setFitness(Double.NaN);
+				cache.evaluate(solution);
+				assert solution.getFitness() == expected(reference, solution) : solution;
+			}
+		}
+		assert cache.getEvictions() > 0;
+
+		// a population evaluated at once: the cached ones are hits, the rest is evaluated at once
+		cache = new CachingBinaryUtil(delegate, 1024);
+		List<BinarySolution> population = new ArrayList<BinarySolution>();
+		for (int i = 0; i < 20; i++) {
+			population.add(reference.generateRandom());
+		}
+		for (int i = 0; i < 10; i++) {
+			cache.evaluate(population.get(2 * i));
+		}
+		delegate.reset();
+		for (BinarySolution solution : population) {
+			solution.setFitness(Double.NaN);
+		}
+		// the first and the last one are left out
+		cache.evaluate(population, 1, 19);
+		assert delegate.batches.get() == 1 && delegate.evaluations.get() == 9 : delegate.batches + " batches, "
+				+ delegate.evaluations + " evaluations";
+		assert Double.isNaN(population.get(0).getFitness()) && Double.isNaN(population.get(19).getFitness());
+		for (int i = 1; i < 19; i++) {
+			assert population.get(i).getFitness() == expected(reference, population.get(i));
+		}
+		cache.evaluate(population, 1, 19);
+		assert delegate.batches.get() == 1;
+
+		// threads evaluating the same few genotypes at the same time
+		CachingBinaryUtil sharedCache = new CachingBinaryUtil(delegate, 16);
+		List<BinarySolution> genotypes = new ArrayList<BinarySolution>();
+		for (int i = 0; i < 40; i++) {
+			genotypes.add(reference.generateRandom());
+		}
+		AtomicInteger wrong = new AtomicInteger();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				BinarySolution solution = new BinarySolution(numBits);
+				for (int i = 0; i < 20000; i++) {
+					BinarySolution genotype = genotypes.get(i % genotypes.size());
+					solution.makeACloneOf(genotype);
+					solution.setFitness(Double.NaN);
+					sharedCache.evaluate(solution);
+					if (solution.getFitness() != genotype.getFitness())
+						wrong.incrementAndGet();
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assert wrong.get() == 0 : wrong + " wrong fitnesses";
+		assert sharedCache.getHits() > 0 && sharedCache.getEvictions() > 0;
+	}
+
+	private static double expected(BinaryUtil reference, BinarySolution solution) {
+
+		BinarySolution copy = new BinarySolution(solution.getNumBits());
+		copy.makeACloneOf(solution);
+		copy.invalidateHash();
+		return reference.evaluate(copy).getFitness();
+	}
+
+	/**
+	 * A genotype whose hash is always the same.
+	 */
+	private static class CollidingSolution extends BinarySolution {
+
+		CollidingSolution(int numBits) {
+			super(numBits);
+		}
+
+		@Override
+		public long getHash() {
+			return 42;
+		}
+	}
+
+	/**
+	 * Counts the evaluations and the populations evaluated at once.
+	 */
+	private static class CountingUtil extends BinaryUtil {
+
+		private BinaryUtil delegate;
+		private AtomicInteger evaluations = new AtomicInteger();
+		private AtomicInteger batches = new AtomicInteger();
+
+		CountingUtil(BinaryUtil delegate) {
+			this.delegate = delegate;
+			this.numBits = delegate.getNumBits();
+		}
+
+		@Override
+		public BinarySolution evaluate(BinarySolution individual) {
+			evaluations.incrementAndGet();
+			return delegate.evaluate(individual);
+		}
+
+		@Override
+		public void evaluate(List<BinarySolution> individuals, int from, int to) {
+			batches.incrementAndGet();
+			evaluations.addAndGet(to - from);
+			delegate.evaluate(individuals, from, to);
+		}
+
+		void reset() {
+			evaluations.set(0);
+			batches.set(0);
+		}
+	}
+}
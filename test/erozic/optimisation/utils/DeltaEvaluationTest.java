@@ -0,0 +1,97 @@
+package erozic.optimisation.utils;
+
+import erozic.optimisation.algorithms.operators.GeometricBitFlipMutation;
+import erozic.optimisation.functions.Function;
+import erozic.optimisation.functions.RastriginFunction;
+import erozic.optimisation.functions.SchwefelFunction;
+import erozic.optimisation.solutions.BinarySolution;
+
+/**
+ * A fuzz test of the re-evaluation after bit flips (see
+ * {@link BinaryUtil#evaluate(BinarySolution, int[], int)}), run with
+ * assertions enabled (-ea): a long chain of random mutations, every one of
+ * which is re-evaluated from the flips (and every now and then continued on a
+ * copy of the individual, which gets the evaluation state with it), has to
+ * give the fitnesses of full evaluations all the way - exactly for the
+ * max-ones problem, and for the separable functions up to the rounding errors
+ * of the updated sum of the terms, which mustn't accumulate (it is summed
+ * again every so often, and then it is exactly the full one).
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class DeltaEvaluationTest {
+
+	private static final int MUTATIONS = 200000;
+
+	public static void main(String[] args) {
+
+		check(new MaxOnesUtil(150), 150);
+
+		int dimensions = 20;
+		check(new BinaryVectorUtil(new RastriginFunction(Function.MINIMISE), dimensions, -5.12, 5.12, 1e-4, true),
+				dimensions);
+		check(new BinaryVectorUtil(new SchwefelFunction(Function.MINIMISE), dimensions, -500, 500, 1e-3, false),
+				dimensions);
+	}
+
+	/**
+	 * @param dimensions
+	 *            the number of terms of the sum, if the util keeps it
+	 */
+	private static void check(BinaryUtil util, int dimensions) {
+
+		int numBits = util.getNumBits();
+		// a few flips per mutation, sometimes none and sometimes more in the same dimension
+		GeometricBitFlipMutation mutation = new GeometricBitFlipMutation(3.0 / numBits, numBits);
+
+		BinarySolution individual = util.generateRandom();
+		BinarySolution copy = new BinarySolution(numBits);
+		BinarySolution full = new BinarySolution(numBits);
+
+		// the first re-evaluation is a full one that keeps the state
+		assert individual.getEvaluationState() == null;
+		util.evaluate(individual, mutation.getFlippedPositions(), 0);
+		assert individual.getEvaluationState() != null;
+
+		double maxError = 0;
+
+		for (int m = 0; m < MUTATIONS; m++) {
+
+			if (m % 1000 == 0) {
+				// continue on a copy, like a child of the mutation-only GA
+				copy.makeACloneOf(individual);
+				BinarySolution temp = individual;
+				individual = copy;
+				copy = temp;
+			}
+
+			int numFlipped = mutation.mutate(individual);
+			util.evaluate(individual, mutation.getFlippedPositions(), numFlipped);
+
+			full.makeACloneOf(individual);
+			full.invalidateHash();
+			double expected = util.evaluate(full).getFitness();
+			double fitness = individual.getFitness();
+
+			if (util instanceof MaxOnesUtil) {
+				assert fitness == expected : fitness + " != " + expected;
+				continue;
+			}
+
+			double error = Math.abs(fitness - expected);
+			maxError = Math.max(maxError, error);
+			assert error <= 1e-12 * (1 + Math.abs(expected)) : m + ": " + fitness + " != " + expected;
+
+			// the number of terms changed since the sum was summed again is kept after the sum
+			double[] state = individual.getEvaluationState();
+			assert state[2 * dimensions + 1] < dimensions;
+			if (state[2 * dimensions + 1] == 0) {
+				assert fitness == expected : m + ": " + fitness + " != " + expected;
+			}
+		}
+
+		System.out.println(util.getClass().getSimpleName() + ": " + MUTATIONS
+				+ " re-evaluations after bit flips, the largest error " + maxError);
+	}
+}
@@ -0,0 +1,84 @@
+package erozic.optimisation.utils;
+
+import java.util.Random;
+
+/**
+ * Tests for the {@link EigenDecomposition} (run with assertions enabled, i.e.
+ * -ea): the eigenvectors of random symmetric matrices (and of some special
+ * ones) have to be orthonormal and, with the eigenvalues, give back the
+ * matrix (V * diag(eigenvalues) * V^T).
+ *
+ * @author Eugen Rožić
+ *
+ */
+public class EigenDecompositionTest {
+
+	private static final double TOLERANCE = 1e-10;
+
+	public static void main(String[] args) {
+
+		Random random = new Random(42);
+
+		for (int n : new int[] { 1, 2, 3, 10, 50 }) {
+
+			// a random symmetric matrix
+			double[] matrix = new double[n * n];
+			for (int i = 0; i < n; i++) {
+				for (int j = i; j < n; j++) {
+					matrix[i * n + j] = matrix[j * n + i] = random.nextGaussian();
+				}
+			}
+			check(matrix, n);
+
+			// the identity, and a diagonal one (already decomposed)
+			double[] diagonal = new double[n * n];
+			for (int i = 0; i < n; i++) {
+				diagonal[i * n + i] = 1;
+			}
+			check(diagonal, n);
+			for (int i = 0; i < n; i++) {
+				diagonal[i * n + i] = Math.pow(10, i % 7);
+			}
+			check(diagonal, n);
+
+			// a covariance matrix of rank 1, with a lot of zero eigenvalues
+			double[] vector = new double[n];
+			for (int i = 0; i < n; i++) {
+				vector[i] = random.nextGaussian();
+			}
+			double[] rankOne = new double[n * n];
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < n; j++) {
+					rankOne[i * n + j] = vector[i] * vector[j];
+				}
+			}
+			check(rankOne, n);
+		}
+	}
+
+	private static void check(double[] matrix, int n) {
+
+		double[] vectors = matrix.clone();
+		double[] eigenvalues = new double[n];
+		EigenDecomposition.decompose(vectors, n, eigenvalues, new double[n]);
+
+		double scale = 1;
+		for (double value : matrix) {
+			scale = Math.max(scale, Math.abs(value));
+		}
+
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				double product = 0;
+				double reconstructed = 0;
+				for (int k = 0; k < n; k++) {
+					product += vectors[k * n + i] * vectors[k * n + j];
+					reconstructed += vectors[i * n + k] * eigenvalues[k] * vectors[j * n + k];
+				}
+				assert Math.abs(product - (i == j ? 1 : 0)) < TOLERANCE : "V^T * V [" + i + "][" + j + "] = " + product;
+				assert Math.abs(reconstructed - matrix[i * n + j]) < TOLERANCE * scale : "V * L * V^T [" + i + "][" + j
+						+ "] = " + reconstructed + " != " + matrix[i * n + j];
+			}
+		}
+	}
+}